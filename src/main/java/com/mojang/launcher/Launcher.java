@@ -3,6 +3,12 @@ package com.mojang.launcher;
 import com.mojang.authlib.Agent;
 import com.mojang.launcher.updater.ExceptionalThreadPoolExecutor;
 import com.mojang.launcher.updater.VersionManager;
+import com.mojang.launcher.updater.download.BandwidthLimiter;
+import com.mojang.launcher.updater.download.DownloadScheduler;
+import com.mojang.launcher.updater.download.DownloadStats;
+import com.mojang.launcher.updater.download.DownloadTransport;
+import com.mojang.launcher.updater.download.ThreadPoolTransport;
+import com.mojang.launcher.updater.download.VirtualThreadTransport;
 import com.mojang.launcher.versions.ReleaseTypeFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,18 +22,29 @@ import java.util.concurrent.TimeUnit;
 public class Launcher
 {
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final int MAX_DOWNLOAD_WORKERS = 16;
+    public static final int DEFAULT_VIRTUAL_DOWNLOAD_WORKERS = 64;
     private final VersionManager versionManager;
     private final File workingDirectory;
     private final UserInterface ui;
     private final Proxy proxy;
     private final PasswordAuthentication proxyAuth;
     private final ThreadPoolExecutor downloaderExecutorService;
+    private final DownloadScheduler downloadScheduler;
+    private final BandwidthLimiter bandwidthLimiter;
     private final Agent agent;
     private final ReleaseTypeFactory releaseTypeFactory;
     private final int launcherFormatVersion;
     
     public Launcher(final UserInterface ui, final File workingDirectory, final Proxy proxy, final PasswordAuthentication proxyAuth, final VersionManager versionManager, final Agent agent, final ReleaseTypeFactory releaseTypeFactory, final int launcherFormatVersion) {
-        this.downloaderExecutorService = new ExceptionalThreadPoolExecutor(16, 16, 30L, TimeUnit.SECONDS);
+        this(ui, workingDirectory, proxy, proxyAuth, versionManager, agent, releaseTypeFactory, launcherFormatVersion, DEFAULT_VIRTUAL_DOWNLOAD_WORKERS);
+    }
+    
+    public Launcher(final UserInterface ui, final File workingDirectory, final Proxy proxy, final PasswordAuthentication proxyAuth, final VersionManager versionManager, final Agent agent, final ReleaseTypeFactory releaseTypeFactory, final int launcherFormatVersion, final int virtualDownloadWorkers) {
+        this.downloaderExecutorService = new ExceptionalThreadPoolExecutor(MAX_DOWNLOAD_WORKERS, MAX_DOWNLOAD_WORKERS, 30L, TimeUnit.SECONDS);
+        final DownloadTransport transport = VirtualThreadTransport.create(virtualDownloadWorkers);
+        this.downloadScheduler = new DownloadScheduler((transport == null) ? new ThreadPoolTransport(this.downloaderExecutorService) : transport);
+        this.bandwidthLimiter = new BandwidthLimiter(0L);
         this.ui = ui;
         this.proxy = proxy;
         this.proxyAuth = proxyAuth;
@@ -37,6 +54,8 @@ public class Launcher
         this.releaseTypeFactory = releaseTypeFactory;
         this.launcherFormatVersion = launcherFormatVersion;
         this.downloaderExecutorService.allowCoreThreadTimeOut(true);
+        DownloadStats.getInstance().register();
+        Launcher.LOGGER.info("Downloading with " + this.downloadScheduler.getTransport().getName() + " transport (up to " + this.downloadScheduler.getMaxWorkers() + " concurrent downloads)");
     }
     
     public ReleaseTypeFactory getReleaseTypeFactory() {
@@ -67,6 +86,14 @@ public class Launcher
         return this.downloaderExecutorService;
     }
     
+    public DownloadScheduler getDownloadScheduler() {
+        return this.downloadScheduler;
+    }
+    
+    public BandwidthLimiter getBandwidthLimiter() {
+        return this.bandwidthLimiter;
+    }
+    
     public void shutdownLauncher() {
         this.getUserInterface().shutdownLauncher();
     }
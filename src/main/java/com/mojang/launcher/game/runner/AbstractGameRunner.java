@@ -1,29 +1,42 @@
 package com.mojang.launcher.game.runner;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mojang.launcher.Launcher;
 import com.mojang.launcher.game.GameInstanceStatus;
 import com.mojang.launcher.updater.DownloadProgress;
 import com.mojang.launcher.updater.VersionSyncInfo;
 import com.mojang.launcher.updater.download.DownloadJob;
 import com.mojang.launcher.updater.download.DownloadListener;
+import com.mojang.launcher.updater.download.DownloadPriority;
+import com.mojang.launcher.updater.download.DownloadReport;
 import com.mojang.launcher.updater.download.Downloadable;
+import com.mojang.launcher.updater.download.SchedulingPolicy;
 import com.mojang.launcher.versions.CompleteVersion;
+import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public abstract class AbstractGameRunner implements GameRunner, DownloadListener
 {
     protected static final Logger LOGGER = LogManager.getLogger();
+    private static final long PROGRESS_UPDATE_INTERVAL = 100L;
+    private static final ScheduledExecutorService PROGRESS_UPDATER = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Download Progress").build());
     protected final Object lock;
     private final List<DownloadJob> jobs;
     protected CompleteVersion version;
     private GameInstanceStatus status;
     private final List<GameRunnerListener> listeners;
+    private ScheduledFuture<?> progressUpdate;
     
     public AbstractGameRunner() {
         this.lock = new Object();
@@ -118,11 +131,15 @@ public abstract class AbstractGameRunner implements GameRunner, DownloadListener
             final DownloadJob librariesJob = new DownloadJob("Version & Libraries", false, this);
             this.addJob(librariesJob);
             this.getLauncher().getVersionManager().downloadVersion(syncInfo, librariesJob);
-            librariesJob.startDownloading(this.getLauncher().getDownloaderExecutorService());
+            librariesJob.setSchedulingPolicy(SchedulingPolicy.LARGEST_FIRST);
+            librariesJob.setBandwidthLimiter(this.getLauncher().getBandwidthLimiter());
+            librariesJob.startDownloading(this.getLauncher().getDownloadScheduler());
             final DownloadJob resourceJob = new DownloadJob("Resources", true, this);
             this.addJob(resourceJob);
             this.getLauncher().getVersionManager().downloadResources(resourceJob, this.version);
-            resourceJob.startDownloading(this.getLauncher().getDownloaderExecutorService());
+            resourceJob.setPriority(DownloadPriority.BACKGROUND);
+            resourceJob.setBandwidthLimiter(this.getLauncher().getBandwidthLimiter());
+            resourceJob.startDownloading(this.getLauncher().getDownloadScheduler());
         }
         catch (IOException e) {
             AbstractGameRunner.LOGGER.error("Couldn't get version info for " + syncInfo.getLatestVersion(), e);
@@ -137,18 +154,21 @@ public abstract class AbstractGameRunner implements GameRunner, DownloadListener
                 long current = 0L;
                 Downloadable longestRunning = null;
                 for (final DownloadJob job : this.jobs) {
-                    for (final Downloadable file : job.getAllFiles()) {
-                        total += file.getMonitor().getTotal();
-                        current += file.getMonitor().getCurrent();
-                        if (longestRunning == null || longestRunning.getEndTime() > 0L || (file.getStartTime() < longestRunning.getStartTime() && file.getEndTime() == 0L)) {
-                            longestRunning = file;
-                        }
+                    total += job.getTotalBytes();
+                    current += job.getCurrentBytes();
+                    final Downloadable file = job.getLongestRunningFile();
+                    if (file != null && (longestRunning == null || file.getStartTime() < longestRunning.getStartTime())) {
+                        longestRunning = file;
                     }
                 }
                 this.getLauncher().getUserInterface().setDownloadProgress(new DownloadProgress(current, total, (longestRunning == null) ? null : longestRunning.getStatus()));
             }
             else {
                 this.jobs.clear();
+                if (this.progressUpdate != null) {
+                    this.progressUpdate.cancel(false);
+                    this.progressUpdate = null;
+                }
                 this.getLauncher().getUserInterface().hideDownloadProgress();
             }
         }
@@ -170,14 +190,38 @@ public abstract class AbstractGameRunner implements GameRunner, DownloadListener
     public void addJob(final DownloadJob job) {
         synchronized (this.lock) {
             this.jobs.add(job);
+            if (this.progressUpdate == null) {
+                this.progressUpdate = AbstractGameRunner.PROGRESS_UPDATER.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        AbstractGameRunner.this.updateProgressBar();
+                    }
+                }, PROGRESS_UPDATE_INTERVAL, PROGRESS_UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+    
+    @Override
+    public void cancelDownloads() {
+        final List<DownloadJob> jobs;
+        synchronized (this.lock) {
+            jobs = Lists.newArrayList(this.jobs);
+        }
+        for (final DownloadJob job : jobs) {
+            job.cancel();
         }
     }
     
     @Override
     public void onDownloadJobFinished(final DownloadJob job) {
         this.updateProgressBar();
+        this.saveDownloadReport(job);
         synchronized (this.lock) {
-            if (job.getFailures() > 0) {
+            if (job.isCancelled()) {
+                AbstractGameRunner.LOGGER.info("Job '" + job.getName() + "' was cancelled (took " + job.getStopWatch().toString() + ")");
+                this.setStatus(GameInstanceStatus.IDLE);
+            }
+            else if (job.getFailures() > 0) {
                 AbstractGameRunner.LOGGER.error("Job '" + job.getName() + "' finished with " + job.getFailures() + " failure(s)! (took " + job.getStopWatch().toString() + ")");
                 this.setStatus(GameInstanceStatus.IDLE);
             }
@@ -196,11 +240,24 @@ public abstract class AbstractGameRunner implements GameRunner, DownloadListener
         }
     }
     
+    protected void saveDownloadReport(final DownloadJob job) {
+        final DownloadReport report = job.getReport();
+        if (report == null) {
+            return;
+        }
+        final File file = new File(this.getLauncher().getWorkingDirectory(), "logs/downloads/" + job.getName().replaceAll("[^A-Za-z0-9]+", "_").toLowerCase() + ".json");
+        try {
+            FileUtils.writeStringToFile(file, report.toJson());
+        }
+        catch (IOException e) {
+            AbstractGameRunner.LOGGER.warn("Couldn't save download report for job '" + job.getName() + "'", e);
+        }
+    }
+    
     protected abstract void launchGame() throws IOException;
     
     @Override
     public void onDownloadJobProgressChanged(final DownloadJob job) {
-        this.updateProgressBar();
     }
     
     public void addListener(final GameRunnerListener listener) {
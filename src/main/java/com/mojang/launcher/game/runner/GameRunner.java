@@ -13,4 +13,6 @@ public interface GameRunner
     boolean hasRemainingJobs();
     
     void addJob(final DownloadJob p0);
+    
+    void cancelDownloads();
 }
@@ -0,0 +1,141 @@
+package com.mojang.launcher.updater.download;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class BandwidthLimiter
+{
+    private static final float BACKGROUND_SHARE = 0.2f;
+    private static final long MAX_WAIT_TIME = 100L;
+    private final ReentrantLock lock;
+    private final Condition tokensAvailable;
+    private long bytesPerSecond;
+    private double tokens;
+    private double backgroundTokens;
+    private long lastRefill;
+    private int foregroundJobs;
+    
+    public BandwidthLimiter(final long bytesPerSecond) {
+        this.lock = new ReentrantLock();
+        this.tokensAvailable = this.lock.newCondition();
+        this.setBytesPerSecond(bytesPerSecond);
+    }
+    
+    public long getBytesPerSecond() {
+        this.lock.lock();
+        try {
+            return this.bytesPerSecond;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    public void setBytesPerSecond(final long bytesPerSecond) {
+        this.lock.lock();
+        try {
+            this.bytesPerSecond = Math.max(0L, bytesPerSecond);
+            this.tokens = this.bytesPerSecond;
+            this.backgroundTokens = this.bytesPerSecond * BACKGROUND_SHARE;
+            this.lastRefill = System.nanoTime();
+            this.tokensAvailable.signalAll();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    public boolean isLimited() {
+        return this.getBytesPerSecond() > 0L;
+    }
+    
+    public void addForegroundJob() {
+        this.lock.lock();
+        try {
+            ++this.foregroundJobs;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    public void removeForegroundJob() {
+        this.lock.lock();
+        try {
+            if (this.foregroundJobs > 0) {
+                --this.foregroundJobs;
+            }
+            this.tokensAvailable.signalAll();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    public void acquire(final long bytes, final DownloadPriority priority) throws InterruptedIOException {
+        if (bytes <= 0L) {
+            return;
+        }
+        long debtTime;
+        this.lock.lock();
+        try {
+            while (true) {
+                if (this.bytesPerSecond <= 0L) {
+                    return;
+                }
+                this.refill();
+                final boolean yieldToForeground = priority == DownloadPriority.BACKGROUND && this.foregroundJobs > 0;
+                if (yieldToForeground ? (this.backgroundTokens > 0.0) : (this.tokens > 0.0)) {
+                    this.tokens -= bytes;
+                    if (yieldToForeground) {
+                        this.backgroundTokens -= bytes;
+                    }
+                    debtTime = (this.tokens < 0.0) ? ((long)(-this.tokens * 1000.0 / this.bytesPerSecond)) : 0L;
+                    break;
+                }
+                final double missing = yieldToForeground ? (-this.backgroundTokens / BACKGROUND_SHARE) : (-this.tokens);
+                final long waitTime = Math.max(1L, Math.min(MAX_WAIT_TIME, (long)(missing * 1000.0 / this.bytesPerSecond) + 1L));
+                try {
+                    this.tokensAvailable.await(waitTime, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for download bandwidth");
+                }
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+        if (debtTime > 0L) {
+            try {
+                Thread.sleep(debtTime);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for download bandwidth");
+            }
+        }
+    }
+    
+    private void refill() {
+        final long now = System.nanoTime();
+        final double elapsed = (now - this.lastRefill) / 1.0E9;
+        this.lastRefill = now;
+        this.tokens = Math.min(this.bytesPerSecond, this.tokens + elapsed * this.bytesPerSecond);
+        this.backgroundTokens = Math.min(this.bytesPerSecond * BACKGROUND_SHARE, this.backgroundTokens + elapsed * this.bytesPerSecond * BACKGROUND_SHARE);
+    }
+    
+    @Override
+    public String toString() {
+        this.lock.lock();
+        try {
+            return "BandwidthLimiter{bytesPerSecond=" + this.bytesPerSecond + ", foregroundJobs=" + this.foregroundJobs + '}';
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+}
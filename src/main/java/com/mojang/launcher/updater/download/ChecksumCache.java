@@ -0,0 +1,134 @@
+package com.mojang.launcher.updater.download;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ChecksumCache
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int MAX_PREFETCH_THREADS = 8;
+    private static final long PREFETCH_TIMEOUT = 60L;
+    private final File file;
+    private final Gson gson;
+    private final Map<String, String> checksums;
+    private boolean loaded;
+    private boolean dirty;
+    
+    public ChecksumCache(final File file) {
+        this.gson = new Gson();
+        this.checksums = new ConcurrentHashMap<String, String>();
+        this.file = file;
+    }
+    
+    public synchronized void load() {
+        if (this.loaded) {
+            return;
+        }
+        this.loaded = true;
+        if (!this.file.isFile()) {
+            return;
+        }
+        try {
+            final Map<String, String> checksums = this.gson.fromJson(FileUtils.readFileToString(this.file), new TypeToken<Map<String, String>>() {}.getType());
+            if (checksums != null) {
+                this.checksums.putAll(checksums);
+            }
+        }
+        catch (IOException e) {
+            ChecksumCache.LOGGER.warn("Couldn't read checksum cache " + this.file, e);
+        }
+        catch (JsonParseException e) {
+            ChecksumCache.LOGGER.warn("Checksum cache " + this.file + " is corrupt, ignoring it", e);
+        }
+    }
+    
+    public synchronized void save() {
+        if (!this.dirty) {
+            return;
+        }
+        try {
+            FileUtils.writeStringToFile(this.file, this.gson.toJson(this.checksums));
+            this.dirty = false;
+        }
+        catch (IOException e) {
+            ChecksumCache.LOGGER.warn("Couldn't save checksum cache " + this.file, e);
+        }
+    }
+    
+    public String get(final ChecksummedDownloadable downloadable) {
+        return this.checksums.get(downloadable.getChecksumUrl().toString());
+    }
+    
+    public synchronized void put(final ChecksummedDownloadable downloadable, final String checksum) {
+        this.checksums.put(downloadable.getChecksumUrl().toString(), checksum);
+        this.dirty = true;
+    }
+    
+    public void prefetch(final Collection<Downloadable> downloadables) {
+        this.load();
+        final List<ChecksummedDownloadable> missing = new ArrayList<ChecksummedDownloadable>();
+        int cached = 0;
+        for (final Downloadable downloadable : downloadables) {
+            if (downloadable instanceof ChecksummedDownloadable) {
+                final ChecksummedDownloadable checksummed = (ChecksummedDownloadable)downloadable;
+                checksummed.setChecksumCache(this);
+                final String checksum = this.get(checksummed);
+                if (checksum != null) {
+                    checksummed.setExpectedHash(checksum);
+                    ++cached;
+                }
+                else {
+                    missing.add(checksummed);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            final long start = System.nanoTime();
+            final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(MAX_PREFETCH_THREADS, missing.size()), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Checksum Prefetch %d").build());
+            for (final ChecksummedDownloadable downloadable : missing) {
+                executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        final String checksum = downloadable.fetchChecksum();
+                        if (checksum != null) {
+                            downloadable.setExpectedHash(checksum);
+                            ChecksumCache.this.put(downloadable, checksum);
+                        }
+                    }
+                });
+            }
+            executorService.shutdown();
+            try {
+                if (!executorService.awaitTermination(PREFETCH_TIMEOUT, TimeUnit.SECONDS)) {
+                    executorService.shutdownNow();
+                    ChecksumCache.LOGGER.warn("Timed out prefetching checksums; remaining libraries will fetch their own");
+                }
+            }
+            catch (InterruptedException e) {
+                executorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            ChecksumCache.LOGGER.info("Prefetched " + missing.size() + " checksum(s) in " + (System.nanoTime() - start) / 1000000L + " ms (" + cached + " cached)");
+        }
+        else if (cached > 0) {
+            ChecksumCache.LOGGER.info("Using " + cached + " cached checksum(s)");
+        }
+        this.save();
+    }
+}
@@ -4,52 +4,82 @@ import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URL;
 
 public class ChecksummedDownloadable extends Downloadable
 {
     private String localHash;
-    private String expectedHash;
+    private volatile String expectedHash;
+    private ChecksumCache checksumCache;
     
     public ChecksummedDownloadable(final Proxy proxy, final URL remoteFile, final File localFile, final boolean forceDownload) {
         super(proxy, remoteFile, localFile, forceDownload);
     }
     
+    public URL getChecksumUrl() {
+        try {
+            return new URL(this.getUrl().toString() + ".sha1");
+        }
+        catch (MalformedURLException e) {
+            throw new IllegalStateException("Invalid checksum URL for " + this.getUrl(), e);
+        }
+    }
+    
+    public String getExpectedHash() {
+        return this.expectedHash;
+    }
+    
+    public void setExpectedHash(final String expectedHash) {
+        this.expectedHash = expectedHash;
+    }
+    
+    public ChecksumCache getChecksumCache() {
+        return this.checksumCache;
+    }
+    
+    public void setChecksumCache(final ChecksumCache checksumCache) {
+        this.checksumCache = checksumCache;
+    }
+    
+    public String fetchChecksum() {
+        try {
+            final HttpURLConnection connection = this.sendRequest(this.makeConnection(this.getChecksumUrl()));
+            final int status = connection.getResponseCode();
+            if (status / 100 == 2) {
+                final InputStream inputStream = this.getInputStream(connection);
+                try {
+                    return IOUtils.toString(inputStream, Charsets.UTF_8).trim();
+                }
+                finally {
+                    IOUtils.closeQuietly(inputStream);
+                }
+            }
+            this.releaseConnection(connection);
+            return (status == 404) ? "" : null;
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+    
     @Override
     public String download() throws IOException {
         ++this.numAttempts;
         this.ensureFileWritable(this.getTarget());
         final File target = this.getTarget();
         if (this.localHash == null && target.isFile()) {
-            this.localHash = Downloadable.getDigest(target, "SHA-1", 40);
+            this.localHash = this.getLocalDigest(target, "SHA-1");
         }
         if (this.expectedHash == null) {
-            try {
-                final HttpURLConnection connection = this.makeConnection(new URL(this.getUrl().toString() + ".sha1"));
-                final int status = connection.getResponseCode();
-                if (status / 100 == 2) {
-                    final InputStream inputStream = connection.getInputStream();
-                    try {
-                        this.expectedHash = IOUtils.toString(inputStream, Charsets.UTF_8).trim();
-                    }
-                    catch (IOException e2) {
-                        this.expectedHash = "";
-                    }
-                    finally {
-                        IOUtils.closeQuietly(inputStream);
-                    }
-                }
-                else {
-                    this.expectedHash = "";
-                }
-            }
-            catch (IOException e) {
-                this.expectedHash = "";
+            final String checksum = this.fetchChecksum();
+            this.expectedHash = (checksum == null) ? "" : checksum;
+            if (checksum != null && this.checksumCache != null) {
+                this.checksumCache.put(this, checksum);
             }
         }
         if (this.expectedHash.length() == 0 && target.isFile()) {
@@ -59,22 +89,30 @@ public class ChecksummedDownloadable extends Downloadable
             return "Remote checksum matches local file";
         }
         try {
-            final HttpURLConnection connection = this.makeConnection(this.getUrl());
+            final HttpURLConnection connection = this.sendRequest(this.makeResumableConnection(this.getUrl(), "SHA-1"));
             final int status = connection.getResponseCode();
             if (status / 100 == 2) {
-                this.updateExpectedSize(connection);
-                final InputStream inputStream = new MonitoringInputStream(connection.getInputStream(), this.getMonitor());
-                final FileOutputStream outputStream = new FileOutputStream(this.getTarget());
-                final String digest = Downloadable.copyAndDigest(inputStream, outputStream, "SHA", 40);
+                final String digest = this.copyToPartial(connection);
                 if (this.expectedHash.length() == 0) {
+                    this.commitPartial();
+                    this.recordDigest(target, "SHA-1", digest);
                     return "Didn't have checksum so assuming the downloaded file is good";
                 }
                 if (this.expectedHash.equalsIgnoreCase(digest)) {
+                    this.commitPartial();
+                    this.recordDigest(target, "SHA-1", digest);
                     return "Downloaded successfully and checksum matched";
                 }
-                throw new RuntimeException(String.format("Checksum did not match downloaded file (Checksum was %s, downloaded %s)", this.expectedHash, digest));
+                this.discardPartial();
+                final String mismatchedHash = this.expectedHash;
+                this.expectedHash = null;
+                throw new RuntimeException(String.format("Checksum did not match downloaded file (Checksum was %s, downloaded %s)", mismatchedHash, digest));
             }
             else {
+                this.releaseConnection(connection);
+                if (status == 416) {
+                    this.discardPartial();
+                }
                 if (this.getTarget().isFile()) {
                     return "Couldn't connect to server (responded with " + status + ") but have local file, assuming it's good";
                 }
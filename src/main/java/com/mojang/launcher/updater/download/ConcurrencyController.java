@@ -0,0 +1,78 @@
+package com.mojang.launcher.updater.download;
+
+public class ConcurrencyController
+{
+    private static final long SAMPLE_INTERVAL = 1000L;
+    private static final float DECREASE_FACTOR = 0.5f;
+    private static final float THROUGHPUT_DROP_TOLERANCE = 0.75f;
+    private final int minLimit;
+    private final int maxLimit;
+    private int limit;
+    private long windowStart;
+    private long windowBytes;
+    private int windowSuccesses;
+    private int windowFailures;
+    private double lastThroughput;
+    
+    public ConcurrencyController(final int initialLimit, final int minLimit, final int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency bounds " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windowStart = System.currentTimeMillis();
+    }
+    
+    public synchronized int getLimit() {
+        return this.limit;
+    }
+    
+    public synchronized double getLastThroughput() {
+        return this.lastThroughput;
+    }
+    
+    public synchronized void onSuccess(final long bytes) {
+        this.windowBytes += bytes;
+        ++this.windowSuccesses;
+        this.sample();
+    }
+    
+    public synchronized void onFailure() {
+        ++this.windowFailures;
+        this.sample();
+    }
+    
+    private void sample() {
+        final long now = System.currentTimeMillis();
+        final long elapsed = now - this.windowStart;
+        if (elapsed < SAMPLE_INTERVAL) {
+            return;
+        }
+        if (this.windowFailures > 0) {
+            this.limit = Math.max(this.minLimit, (int)(this.limit * DECREASE_FACTOR));
+        }
+        else if (this.windowBytes > 0L) {
+            final double throughput = this.windowBytes * 1000.0 / elapsed;
+            if (throughput < this.lastThroughput * THROUGHPUT_DROP_TOLERANCE) {
+                this.limit = Math.max(this.minLimit, this.limit - 1);
+            }
+            else {
+                this.limit = Math.min(this.maxLimit, this.limit + 1);
+            }
+            this.lastThroughput = throughput;
+        }
+        else if (this.windowSuccesses > 0) {
+            this.limit = Math.min(this.maxLimit, this.limit + 1);
+        }
+        this.windowStart = now;
+        this.windowBytes = 0L;
+        this.windowSuccesses = 0;
+        this.windowFailures = 0;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "ConcurrencyController{limit=" + this.limit + ", min=" + this.minLimit + ", max=" + this.maxLimit + ", throughput=" + (long)this.lastThroughput + "B/s}";
+    }
+}
@@ -0,0 +1,220 @@
+package com.mojang.launcher.updater.download;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class ConnectionPool
+{
+    public static final int MAX_CONNECTIONS_PER_HOST = 16;
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int MAX_DRAIN_BYTES = 65536;
+    private final int maxConnectionsPerHost;
+    private final Map<String, HostStats> hosts;
+    private final Set<HttpURLConnection> outstanding;
+    
+    public ConnectionPool(final int maxConnectionsPerHost) {
+        this.hosts = new LinkedHashMap<String, HostStats>();
+        this.outstanding = Collections.newSetFromMap(new IdentityHashMap<HttpURLConnection, Boolean>());
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        configureKeepAlive(maxConnectionsPerHost);
+    }
+    
+    // The JDK reads these once, when its keep-alive cache is first used; Main sets them before any request is made.
+    public static void configureKeepAlive(final int maxConnectionsPerHost) {
+        if (System.getProperty("http.keepAlive") == null) {
+            System.setProperty("http.keepAlive", "true");
+        }
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(maxConnectionsPerHost));
+        }
+    }
+    
+    private static String getKey(final URL url) {
+        final int port = (url.getPort() == -1) ? url.getDefaultPort() : url.getPort();
+        return url.getProtocol() + "://" + url.getHost() + ":" + port;
+    }
+    
+    private HostStats getStats(final String key) {
+        HostStats stats = this.hosts.get(key);
+        if (stats == null) {
+            stats = new HostStats();
+            this.hosts.put(key, stats);
+        }
+        return stats;
+    }
+    
+    public HttpURLConnection open(final URL url, final Proxy proxy) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection)url.openConnection(proxy);
+        synchronized (this.hosts) {
+            final HostStats stats = this.getStats(getKey(url));
+            ++stats.requests;
+            ++stats.inUse;
+            this.outstanding.add(connection);
+        }
+        return connection;
+    }
+    
+    public InputStream getInputStream(final HttpURLConnection connection) throws IOException {
+        try {
+            return new PooledInputStream(connection.getInputStream(), connection);
+        }
+        catch (IOException e) {
+            this.release(connection);
+            throw e;
+        }
+    }
+    
+    public void release(final HttpURLConnection connection) {
+        final InputStream errorStream = connection.getErrorStream();
+        if (errorStream != null) {
+            this.onReleased(connection, drain(errorStream));
+            return;
+        }
+        try {
+            final InputStream inputStream = connection.getInputStream();
+            this.onReleased(connection, drain(inputStream));
+        }
+        catch (IOException e) {
+            this.onReleased(connection, false);
+        }
+    }
+    
+    public void forget(final HttpURLConnection connection) {
+        this.onReleased(connection, false);
+    }
+    
+    private static boolean drain(final InputStream inputStream) {
+        final byte[] buffer = new byte[4096];
+        boolean reusable = false;
+        try {
+            long drained = 0L;
+            int read;
+            while (drained <= MAX_DRAIN_BYTES && (read = inputStream.read(buffer)) >= 0) {
+                drained += read;
+            }
+            reusable = (drained <= MAX_DRAIN_BYTES);
+        }
+        catch (IOException ignored) { }
+        finally {
+            Downloadable.closeSilently(inputStream);
+        }
+        return reusable;
+    }
+    
+    private void onReleased(final HttpURLConnection connection, final boolean reusable) {
+        synchronized (this.hosts) {
+            if (!this.outstanding.remove(connection)) {
+                return;
+            }
+            final HostStats stats = this.getStats(getKey(connection.getURL()));
+            --stats.inUse;
+            if (reusable) {
+                ++stats.reusable;
+            }
+        }
+    }
+    
+    public long getRequests() {
+        long requests = 0L;
+        synchronized (this.hosts) {
+            for (final HostStats stats : this.hosts.values()) {
+                requests += stats.requests;
+            }
+        }
+        return requests;
+    }
+    
+    public long getReusable() {
+        long reusable = 0L;
+        synchronized (this.hosts) {
+            for (final HostStats stats : this.hosts.values()) {
+                reusable += stats.reusable;
+            }
+        }
+        return reusable;
+    }
+    
+    public int getInUse() {
+        synchronized (this.hosts) {
+            return this.outstanding.size();
+        }
+    }
+    
+    public void logStats() {
+        synchronized (this.hosts) {
+            for (final Map.Entry<String, HostStats> entry : this.hosts.entrySet()) {
+                final HostStats stats = entry.getValue();
+                ConnectionPool.LOGGER.info("Connections to " + entry.getKey() + ": " + stats.requests + " request(s), " + stats.reusable + " left eligible for keep-alive, " + stats.inUse + " in use");
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "ConnectionPool{requests=" + this.getRequests() + ", reusable=" + this.getReusable() + ", inUse=" + this.getInUse() + ", maxConnectionsPerHost=" + this.maxConnectionsPerHost + '}';
+    }
+    
+    private static class HostStats
+    {
+        private int inUse;
+        private long requests;
+        private long reusable;
+    }
+    
+    private class PooledInputStream extends FilterInputStream
+    {
+        private final HttpURLConnection connection;
+        private boolean eof;
+        private boolean closed;
+        
+        public PooledInputStream(final InputStream in, final HttpURLConnection connection) {
+            super(in);
+            this.connection = connection;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            final int result = this.in.read();
+            if (result < 0) {
+                this.eof = true;
+            }
+            return result;
+        }
+        
+        @Override
+        public int read(final byte[] buffer, final int off, final int len) throws IOException {
+            final int size = this.in.read(buffer, off, len);
+            if (size < 0) {
+                this.eof = true;
+            }
+            return size;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            if (this.eof) {
+                this.in.close();
+                ConnectionPool.this.onReleased(this.connection, true);
+            }
+            else {
+                ConnectionPool.this.onReleased(this.connection, drain(this.in));
+            }
+        }
+    }
+}
@@ -1,36 +1,69 @@
 package com.mojang.launcher.updater.download;
 
+import com.mojang.launcher.updater.DownloadProgress;
 import org.apache.commons.lang3.time.StopWatch;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DownloadJob
 {
     private static final Logger LOGGER = LogManager.getLogger();
     private static final int MAX_ATTEMPTS_PER_FILE = 5;
     private static final int ASSUMED_AVERAGE_FILE_SIZE = 5242880;
-    private final Queue<Downloadable> remainingFiles;
+    private static final int MIN_THREADS = 1;
+    private static final long RETRY_BASE_DELAY = 500L;
+    private static final long RETRY_MAX_DELAY = 30000L;
+    private static final Random RANDOM = new Random();
+    private Queue<Downloadable> remainingFiles;
+    private final DelayQueue<DelayedRetry> delayedRetries;
     private final List<Downloadable> allFiles;
     private final List<Downloadable> failures;
     private final List<Downloadable> successful;
+    private final Set<Downloadable> activeFiles;
     private final DownloadListener listener;
     private final String name;
     private final boolean ignoreFailures;
-    private final AtomicInteger remainingThreads;
+    private final AtomicInteger activeDownloads;
+    private final AtomicBoolean finished;
+    private final AtomicBoolean cancelled;
+    private final AtomicLong currentBytes;
+    private final AtomicLong totalBytes;
     private final StopWatch stopWatch;
+    private DownloadScheduler scheduler;
+    private ConcurrencyController concurrencyController;
+    private SchedulingPolicy schedulingPolicy;
+    private BandwidthLimiter bandwidthLimiter;
+    private DownloadPriority priority;
+    private DownloadReport report;
     private boolean started;
     
     public DownloadJob(final String name, final boolean ignoreFailures, final DownloadListener listener, final Collection<Downloadable> files) {
-        this.remainingFiles = new ConcurrentLinkedQueue<Downloadable>();
+        this.schedulingPolicy = SchedulingPolicy.FIFO;
+        this.priority = DownloadPriority.FOREGROUND;
+        this.remainingFiles = this.schedulingPolicy.createQueue();
+        this.delayedRetries = new DelayQueue<DelayedRetry>();
         this.allFiles = Collections.synchronizedList(new ArrayList<Downloadable>());
         this.failures = Collections.synchronizedList(new ArrayList<Downloadable>());
         this.successful = Collections.synchronizedList(new ArrayList<Downloadable>());
-        this.remainingThreads = new AtomicInteger();
+        this.activeFiles = Collections.newSetFromMap(new ConcurrentHashMap<Downloadable, Boolean>());
+        this.activeDownloads = new AtomicInteger();
+        this.finished = new AtomicBoolean();
+        this.cancelled = new AtomicBoolean();
+        this.currentBytes = new AtomicLong();
+        this.totalBytes = new AtomicLong();
         this.stopWatch = new StopWatch();
         this.name = name;
         this.ignoreFailures = ignoreFailures;
@@ -44,6 +77,51 @@ public class DownloadJob
         this(name, ignoreFailures, listener, null);
     }
     
+    public SchedulingPolicy getSchedulingPolicy() {
+        return this.schedulingPolicy;
+    }
+    
+    public void setSchedulingPolicy(final SchedulingPolicy schedulingPolicy) {
+        if (this.started) {
+            throw new IllegalStateException("Cannot change scheduling of download job that has already started");
+        }
+        final Queue<Downloadable> queue = schedulingPolicy.createQueue();
+        queue.addAll(this.remainingFiles);
+        this.schedulingPolicy = schedulingPolicy;
+        this.remainingFiles = queue;
+    }
+    
+    public DownloadPriority getPriority() {
+        return this.priority;
+    }
+    
+    public void setPriority(final DownloadPriority priority) {
+        if (this.started) {
+            throw new IllegalStateException("Cannot change priority of download job that has already started");
+        }
+        this.priority = priority;
+    }
+    
+    public BandwidthLimiter getBandwidthLimiter() {
+        return this.bandwidthLimiter;
+    }
+    
+    public void setBandwidthLimiter(final BandwidthLimiter bandwidthLimiter) {
+        if (this.started) {
+            throw new IllegalStateException("Cannot change bandwidth limit of download job that has already started");
+        }
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+    
+    public void throttle(final long bytes) throws IOException {
+        if (this.cancelled.get()) {
+            throw new InterruptedIOException("Download job '" + this.name + "' was cancelled");
+        }
+        if (this.bandwidthLimiter != null) {
+            this.bandwidthLimiter.acquire(bytes, this.priority);
+        }
+    }
+    
     public void addDownloadables(final Collection<Downloadable> downloadables) {
         if (this.started) {
             throw new IllegalStateException("Cannot add to download job that has already started");
@@ -78,64 +156,286 @@ public class DownloadJob
         }
     }
     
+    public void addFollowUpDownloadables(final Collection<? extends Downloadable> downloadables) {
+        synchronized (this) {
+            if (!this.started || this.finished.get()) {
+                throw new IllegalStateException("Cannot add follow-up downloads to a job that is not running");
+            }
+            if (this.cancelled.get()) {
+                for (final Downloadable downloadable : downloadables) {
+                    downloadable.setOutcome("Cancelled", false);
+                }
+                return;
+            }
+            for (final Downloadable downloadable : downloadables) {
+                this.allFiles.add(downloadable);
+                this.remainingFiles.add(downloadable);
+                if (downloadable.getExpectedSize() == 0L) {
+                    downloadable.getMonitor().setTotal(ASSUMED_AVERAGE_FILE_SIZE);
+                }
+                else {
+                    downloadable.getMonitor().setTotal(downloadable.getExpectedSize());
+                }
+                downloadable.getMonitor().setJob(this);
+            }
+        }
+        DownloadJob.LOGGER.debug("Download job '" + this.name + "' picked up " + downloadables.size() + " follow-up download(s)");
+    }
+    
     public void startDownloading(final ThreadPoolExecutor executorService) {
+        this.startDownloading(new DownloadScheduler(executorService));
+    }
+    
+    public void startDownloading(final DownloadScheduler scheduler) {
         if (this.started) {
             throw new IllegalStateException("Cannot start download job that has already started");
         }
         this.started = true;
         this.stopWatch.start();
-        if (this.allFiles.isEmpty()) {
-            DownloadJob.LOGGER.info("Download job '" + this.name + "' skipped as there are no files to download");
+        if (this.allFiles.isEmpty() || this.cancelled.get()) {
+            DownloadJob.LOGGER.info("Download job '" + this.name + "' skipped as " + (this.cancelled.get() ? "it was cancelled" : "there are no files to download"));
+            this.finished.set(true);
+            this.report = DownloadReport.create(this);
             this.listener.onDownloadJobFinished(this);
         }
         else {
-            final int threads = executorService.getMaximumPoolSize();
-            this.remainingThreads.set(threads);
-            DownloadJob.LOGGER.info("Download job '" + this.name + "' started (" + threads + " threads, " + this.allFiles.size() + " files)");
-            for (int i = 0; i < threads; ++i) {
-                executorService.submit(new Runnable() {
-                    @Override
-                    public void run() {
-                        DownloadJob.this.popAndDownload();
-                    }
-                });
+            final int maxThreads = scheduler.getMaxWorkers();
+            final int threads = Math.max(MIN_THREADS, Math.min(maxThreads / 2, this.allFiles.size()));
+            this.scheduler = scheduler;
+            this.concurrencyController = new ConcurrencyController(threads, MIN_THREADS, maxThreads);
+            if (this.bandwidthLimiter != null && this.priority == DownloadPriority.FOREGROUND) {
+                this.bandwidthLimiter.addForegroundJob();
             }
+            DownloadJob.LOGGER.info("Download job '" + this.name + "' started (" + threads + " of up to " + maxThreads + " threads, " + this.allFiles.size() + " files, " + this.schedulingPolicy + " scheduling, " + this.priority + " priority)");
+            DownloadStats.getInstance().onJobStarted(this);
+            scheduler.submit(this);
         }
     }
     
-    private void popAndDownload() {
-        Downloadable downloadable;
-        while ((downloadable = this.remainingFiles.poll()) != null) {
-            if (downloadable.getStartTime() == 0L) {
-                downloadable.setStartTime(System.currentTimeMillis());
+    public void cancel() {
+        if (this.finished.get() || !this.cancelled.compareAndSet(false, true)) {
+            return;
+        }
+        DownloadJob.LOGGER.info("Cancelling download job '" + this.name + "' (" + this.activeDownloads.get() + " download(s) in progress)");
+        synchronized (this) {
+            for (final Downloadable downloadable : this.remainingFiles) {
+                downloadable.setOutcome("Cancelled", false);
             }
-            if (downloadable.getNumAttempts() > MAX_ATTEMPTS_PER_FILE) {
-                if (!this.ignoreFailures) {
-                    this.failures.add(downloadable);
-                }
-                DownloadJob.LOGGER.error("Gave up trying to download " + downloadable.getUrl() + " for job '" + this.name + "'");
+            for (final DelayedRetry retry : this.delayedRetries) {
+                retry.getDownloadable().setOutcome("Cancelled", false);
             }
-            else {
-                try {
-                    DownloadJob.LOGGER.info("Attempting to download " + downloadable.getTarget() + " for job '" + this.name + "'... (try " + downloadable.getNumAttempts() + ")");
-                    final String result = downloadable.download();
-                    this.successful.add(downloadable);
-                    downloadable.setEndTime(System.currentTimeMillis());
-                    downloadable.getMonitor().setCurrent(downloadable.getMonitor().getTotal());
-                    DownloadJob.LOGGER.info("Finished downloading " + downloadable.getTarget() + " for job '" + this.name + "'" + ": " + result);
+            this.remainingFiles.clear();
+            this.delayedRetries.clear();
+        }
+        for (final Downloadable downloadable : this.activeFiles) {
+            downloadable.cancel();
+        }
+        if (this.scheduler != null) {
+            this.finishIfComplete();
+        }
+    }
+    
+    public boolean isCancelled() {
+        return this.cancelled.get();
+    }
+    
+    synchronized Downloadable pollWork() {
+        if (this.finished.get() || this.cancelled.get() || this.activeDownloads.get() >= this.concurrencyController.getLimit()) {
+            return null;
+        }
+        DelayedRetry retry;
+        while ((retry = this.delayedRetries.poll()) != null) {
+            this.remainingFiles.add(retry.getDownloadable());
+        }
+        final Downloadable downloadable = this.remainingFiles.poll();
+        if (downloadable != null) {
+            this.activeDownloads.incrementAndGet();
+        }
+        return downloadable;
+    }
+    
+    int getWantedWorkers() {
+        if (this.remainingFiles.isEmpty()) {
+            return this.activeDownloads.get();
+        }
+        return this.concurrencyController.getLimit();
+    }
+    
+    long getTimeUntilNextRetry() {
+        final DelayedRetry retry = this.delayedRetries.peek();
+        if (retry == null) {
+            return -1L;
+        }
+        return Math.max(0L, retry.getDelay(TimeUnit.MILLISECONDS));
+    }
+    
+    private synchronized void scheduleRetry(final Downloadable downloadable, final long delay) {
+        if (this.cancelled.get()) {
+            downloadable.setOutcome("Cancelled", false);
+            return;
+        }
+        this.delayedRetries.add(new DelayedRetry(downloadable, delay));
+    }
+    
+    private static HostCircuitBreaker getContactedBreaker(final Downloadable downloadable, final HostCircuitBreaker fallback) {
+        final URL contactedUrl = downloadable.getContactedUrl();
+        return (contactedUrl == null) ? fallback : HostCircuitBreaker.forUrl(contactedUrl);
+    }
+    
+    private static long getRetryDelay(final int attempt) {
+        final long delay = Math.min(RETRY_MAX_DELAY, RETRY_BASE_DELAY << Math.min(Math.max(attempt - 1, 0), 16));
+        return delay / 2L + (long)(DownloadJob.RANDOM.nextDouble() * (delay / 2L));
+    }
+    
+    void runWork(final Downloadable downloadable) {
+        final int previousLimit = this.concurrencyController.getLimit();
+        try {
+            this.download(downloadable);
+        }
+        finally {
+            this.activeDownloads.decrementAndGet();
+        }
+        this.listener.onDownloadJobProgressChanged(this);
+        final int limit = this.concurrencyController.getLimit();
+        if (limit != previousLimit) {
+            DownloadJob.LOGGER.info("Download job '" + this.name + "' now using up to " + limit + " threads (was " + previousLimit + ", " + this.concurrencyController + ")");
+        }
+        this.finishIfComplete();
+    }
+    
+    private void finishIfComplete() {
+        if (this.isComplete() && this.finished.compareAndSet(false, true)) {
+            this.scheduler.remove(this);
+            if (this.bandwidthLimiter != null && this.priority == DownloadPriority.FOREGROUND) {
+                this.bandwidthLimiter.removeForegroundJob();
+            }
+            this.saveCaches();
+            this.report = DownloadReport.create(this);
+            DownloadStats.getInstance().onJobFinished(this, this.report);
+            DownloadJob.LOGGER.info("Download job '" + this.name + "' released its workers (" + Downloadable.getConnectionPool() + ")");
+            DownloadJob.LOGGER.info("Download job '" + this.name + "' report: " + this.report);
+            this.listener.onDownloadJobFinished(this);
+        }
+    }
+    
+    private void saveCaches() {
+        final Set<VerifiedFileIndex> indexes = Collections.newSetFromMap(new IdentityHashMap<VerifiedFileIndex, Boolean>());
+        final Set<ChecksumCache> checksumCaches = Collections.newSetFromMap(new IdentityHashMap<ChecksumCache, Boolean>());
+        synchronized (this.allFiles) {
+            for (final Downloadable downloadable : this.allFiles) {
+                if (downloadable.getVerifiedFileIndex() != null) {
+                    indexes.add(downloadable.getVerifiedFileIndex());
                 }
-                catch (Throwable t) {
-                    DownloadJob.LOGGER.warn("Couldn't download " + downloadable.getUrl() + " for job '" + this.name + "'", t);
-                    downloadable.getMonitor().setCurrent(downloadable.getMonitor().getTotal());
-                    this.remainingFiles.add(downloadable);
+                if (downloadable instanceof ChecksummedDownloadable && ((ChecksummedDownloadable)downloadable).getChecksumCache() != null) {
+                    checksumCaches.add(((ChecksummedDownloadable)downloadable).getChecksumCache());
                 }
             }
         }
-        if (this.remainingThreads.decrementAndGet() <= 0) {
-            this.listener.onDownloadJobFinished(this);
+        for (final VerifiedFileIndex index : indexes) {
+            index.save();
+        }
+        for (final ChecksumCache checksumCache : checksumCaches) {
+            checksumCache.save();
         }
     }
     
+    private void download(final Downloadable downloadable) {
+        if (downloadable.getStartTime() == 0L) {
+            downloadable.setStartTime(System.currentTimeMillis());
+        }
+        if (downloadable.getNumAttempts() > MAX_ATTEMPTS_PER_FILE) {
+            this.giveUp(downloadable);
+            return;
+        }
+        if (this.cancelled.get()) {
+            downloadable.setOutcome("Cancelled", false);
+            return;
+        }
+        final HostCircuitBreaker circuitBreaker = HostCircuitBreaker.forUrl(Downloadable.getMirrorSelector().select(downloadable.getUrl()));
+        final long wait = circuitBreaker.getWaitTime();
+        if (wait > 0L) {
+            if (circuitBreaker.isGivingUp()) {
+                DownloadJob.LOGGER.warn("Host " + circuitBreaker.getHost() + " is still unreachable; not retrying " + downloadable.getUrl() + " for job '" + this.name + "'");
+                downloadable.setOutcome("Host " + circuitBreaker.getHost() + " is unreachable", false);
+                this.giveUp(downloadable);
+                return;
+            }
+            DownloadJob.LOGGER.debug("Deferring " + downloadable.getUrl() + " for job '" + this.name + "' by " + wait + " ms while " + circuitBreaker.getHost() + " recovers");
+            this.scheduleRetry(downloadable, wait);
+            return;
+        }
+        boolean probe = circuitBreaker.getState() == HostCircuitBreaker.State.HALF_OPEN;
+        this.activeFiles.add(downloadable);
+        InFlightDownload inFlight = null;
+        try {
+            inFlight = InFlightDownload.claim(downloadable, this.name);
+            DownloadJob.LOGGER.info("Attempting to download " + downloadable.getTarget() + " for job '" + this.name + "'... (try " + downloadable.getNumAttempts() + ")");
+            final long before = downloadable.getMonitor().getCurrent();
+            final long attemptStart = System.currentTimeMillis();
+            final String result = downloadable.download();
+            final long transferred = downloadable.getMonitor().getCurrent() - before;
+            this.successful.add(downloadable);
+            downloadable.setEndTime(System.currentTimeMillis());
+            downloadable.setAttemptTime(downloadable.getEndTime() - attemptStart);
+            downloadable.setTransferredBytes(transferred);
+            downloadable.setOutcome(result, true);
+            DownloadStats.getInstance().onFileDownloaded(transferred);
+            this.concurrencyController.onSuccess(transferred);
+            final HostCircuitBreaker contacted = getContactedBreaker(downloadable, circuitBreaker);
+            probe = (probe && contacted != circuitBreaker);
+            if (contacted.onSuccess()) {
+                DownloadJob.LOGGER.info("Host " + contacted.getHost() + " recovered; resuming requests for job '" + this.name + "'");
+            }
+            downloadable.getMonitor().setCurrent(downloadable.getMonitor().getTotal());
+            DownloadJob.LOGGER.info("Finished downloading " + downloadable.getTarget() + " for job '" + this.name + "'" + ": " + result);
+        }
+        catch (Throwable t) {
+            if (this.cancelled.get()) {
+                DownloadJob.LOGGER.info("Cancelled download of " + downloadable.getUrl() + " for job '" + this.name + "'");
+                downloadable.setOutcome("Cancelled", false);
+                downloadable.discardPartial();
+                return;
+            }
+            DownloadJob.LOGGER.warn("Couldn't download " + downloadable.getUrl() + " for job '" + this.name + "'", t);
+            downloadable.setOutcome(t.toString(), false);
+            this.concurrencyController.onFailure();
+            if (HostCircuitBreaker.isHostFailure(t, downloadable.getResponseCode())) {
+                final HostCircuitBreaker contacted = getContactedBreaker(downloadable, circuitBreaker);
+                probe = (probe && contacted != circuitBreaker);
+                if (contacted.onFailure()) {
+                    DownloadJob.LOGGER.warn("Host " + contacted.getHost() + " is failing; pausing requests to it for " + contacted.getOpenTime() + " ms (job '" + this.name + "')");
+                }
+            }
+            downloadable.getMonitor().setCurrent(downloadable.getMonitor().getTotal());
+            if (downloadable.getNumAttempts() >= MAX_ATTEMPTS_PER_FILE) {
+                this.giveUp(downloadable);
+                return;
+            }
+            DownloadStats.getInstance().onRetry();
+            final long delay = getRetryDelay(downloadable.getNumAttempts());
+            DownloadJob.LOGGER.info("Retrying " + downloadable.getUrl() + " for job '" + this.name + "' in " + delay + " ms (attempt " + downloadable.getNumAttempts() + " of " + MAX_ATTEMPTS_PER_FILE + " failed)");
+            this.scheduleRetry(downloadable, delay);
+        }
+        finally {
+            if (probe) {
+                circuitBreaker.cancelProbe();
+            }
+            if (inFlight != null) {
+                inFlight.release();
+            }
+            this.activeFiles.remove(downloadable);
+            downloadable.forgetConnections();
+        }
+    }
+    
+    private void giveUp(final Downloadable downloadable) {
+        if (!this.ignoreFailures) {
+            this.failures.add(downloadable);
+        }
+        DownloadStats.getInstance().onFileFailed();
+        DownloadJob.LOGGER.error("Gave up trying to download " + downloadable.getUrl() + " for job '" + this.name + "'");
+    }
+    
     public boolean shouldIgnoreFailures() {
         return this.ignoreFailures;
     }
@@ -144,8 +444,21 @@ public class DownloadJob
         return this.started;
     }
     
-    public boolean isComplete() {
-        return this.started && this.remainingFiles.isEmpty() && this.remainingThreads.get() == 0;
+    public synchronized boolean isComplete() {
+        return this.started && this.remainingFiles.isEmpty() && this.delayedRetries.isEmpty() && this.activeDownloads.get() == 0;
+    }
+    
+    public int getActiveDownloads() {
+        return this.activeDownloads.get();
+    }
+    
+    public long getThroughput() {
+        final ConcurrencyController controller = this.concurrencyController;
+        return (controller == null) ? 0L : ((long)controller.getLastThroughput());
+    }
+    
+    public DownloadReport getReport() {
+        return this.report;
     }
     
     public int getFailures() {
@@ -160,8 +473,36 @@ public class DownloadJob
         return this.name;
     }
     
-    public void updateProgress() {
-        this.listener.onDownloadJobProgressChanged(this);
+    public void addProgress(final long current, final long total) {
+        if (current != 0L) {
+            this.currentBytes.addAndGet(current);
+        }
+        if (total != 0L) {
+            this.totalBytes.addAndGet(total);
+        }
+    }
+    
+    public long getCurrentBytes() {
+        return this.currentBytes.get();
+    }
+    
+    public long getTotalBytes() {
+        return this.totalBytes.get();
+    }
+    
+    public Downloadable getLongestRunningFile() {
+        Downloadable longestRunning = null;
+        for (final Downloadable file : this.activeFiles) {
+            if (longestRunning == null || file.getStartTime() < longestRunning.getStartTime()) {
+                longestRunning = file;
+            }
+        }
+        return longestRunning;
+    }
+    
+    public DownloadProgress getProgress() {
+        final Downloadable longestRunning = this.getLongestRunningFile();
+        return new DownloadProgress(this.currentBytes.get(), this.totalBytes.get(), (longestRunning == null) ? null : longestRunning.getStatus());
     }
     
     public List<Downloadable> getAllFiles() {
@@ -171,4 +512,30 @@ public class DownloadJob
     public StopWatch getStopWatch() {
         return this.stopWatch;
     }
+    
+    private static class DelayedRetry implements Delayed
+    {
+        private final Downloadable downloadable;
+        private final long readyTime;
+        
+        public DelayedRetry(final Downloadable downloadable, final long delay) {
+            this.downloadable = downloadable;
+            this.readyTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        }
+        
+        public Downloadable getDownloadable() {
+            return this.downloadable;
+        }
+        
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(this.readyTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        
+        @Override
+        public int compareTo(final Delayed other) {
+            final long difference = this.getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+            return (difference < 0L) ? -1 : ((difference > 0L) ? 1 : 0);
+        }
+    }
 }
@@ -0,0 +1,7 @@
+package com.mojang.launcher.updater.download;
+
+public enum DownloadPriority
+{
+    FOREGROUND, 
+    BACKGROUND;
+}
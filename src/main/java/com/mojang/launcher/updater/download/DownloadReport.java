@@ -0,0 +1,153 @@
+package com.mojang.launcher.updater.download;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DownloadReport
+{
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private final String job;
+    private final long startTime;
+    private final long duration;
+    private final int successful;
+    private final int failed;
+    private final int retries;
+    private final long bytes;
+    private final long bytesPerSecond;
+    private final boolean cancelled;
+    private final Map<String, HostReport> hosts;
+    private final List<FileReport> files;
+    
+    private DownloadReport(final String job, final long startTime, final long duration, final boolean cancelled, final List<FileReport> files) {
+        this.job = job;
+        this.cancelled = cancelled;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.files = files;
+        this.hosts = new LinkedHashMap<String, HostReport>();
+        final Map<String, List<Long>> latencies = new LinkedHashMap<String, List<Long>>();
+        int successful = 0;
+        int retries = 0;
+        long bytes = 0L;
+        for (final FileReport file : files) {
+            if (file.successful) {
+                ++successful;
+            }
+            retries += Math.max(0, file.attempts - 1);
+            bytes += file.bytes;
+            HostReport host = this.hosts.get(file.host);
+            if (host == null) {
+                host = new HostReport();
+                this.hosts.put(file.host, host);
+                latencies.put(file.host, new ArrayList<Long>());
+            }
+            ++host.files;
+            host.bytes += file.bytes;
+            if (file.successful && file.attempts > 0) {
+                latencies.get(file.host).add(file.duration);
+            }
+        }
+        for (final Map.Entry<String, HostReport> entry : this.hosts.entrySet()) {
+            final List<Long> samples = latencies.get(entry.getKey());
+            Collections.sort(samples);
+            entry.getValue().p50 = percentile(samples, 0.5);
+            entry.getValue().p95 = percentile(samples, 0.95);
+            entry.getValue().p99 = percentile(samples, 0.99);
+        }
+        this.successful = successful;
+        this.failed = files.size() - successful;
+        this.retries = retries;
+        this.bytes = bytes;
+        this.bytesPerSecond = (duration > 0L) ? (bytes * 1000L / duration) : 0L;
+    }
+    
+    public static DownloadReport create(final DownloadJob job) {
+        final List<FileReport> files = new ArrayList<FileReport>();
+        synchronized (job.getAllFiles()) {
+            for (final Downloadable downloadable : job.getAllFiles()) {
+                files.add(new FileReport(downloadable));
+            }
+        }
+        return new DownloadReport(job.getName(), job.getStopWatch().getStartTime(), job.getStopWatch().getTime(), job.isCancelled(), files);
+    }
+    
+    private static long percentile(final List<Long> sorted, final double percentile) {
+        if (sorted.isEmpty()) {
+            return 0L;
+        }
+        return sorted.get(Math.max(0, (int)Math.ceil(sorted.size() * percentile) - 1));
+    }
+    
+    public String getJob() {
+        return this.job;
+    }
+    
+    public int getSuccessful() {
+        return this.successful;
+    }
+    
+    public int getFailed() {
+        return this.failed;
+    }
+    
+    public int getRetries() {
+        return this.retries;
+    }
+    
+    public long getBytes() {
+        return this.bytes;
+    }
+    
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+    
+    public String toJson() {
+        return DownloadReport.GSON.toJson(this);
+    }
+    
+    @Override
+    public String toString() {
+        return "DownloadReport{job='" + this.job + '\'' + ", files=" + this.files.size() + ", successful=" + this.successful + ", failed=" + this.failed + ", retries=" + this.retries + ", bytes=" + this.bytes + ", duration=" + this.duration + "ms, cancelled=" + this.cancelled + ", hosts=" + this.hosts.keySet() + '}';
+    }
+    
+    private static class FileReport
+    {
+        private final String url;
+        private final String host;
+        private final String target;
+        private final long bytes;
+        private final long duration;
+        private final long bytesPerSecond;
+        private final int attempts;
+        private final boolean successful;
+        private final String outcome;
+        
+        public FileReport(final Downloadable downloadable) {
+            this.url = downloadable.getUrl().toString();
+            this.host = downloadable.getUrl().getHost();
+            this.target = downloadable.getTarget().getPath();
+            this.bytes = downloadable.getTransferredBytes();
+            this.duration = downloadable.getAttemptTime();
+            this.bytesPerSecond = (this.duration > 0L) ? (this.bytes * 1000L / this.duration) : 0L;
+            this.attempts = downloadable.getNumAttempts();
+            this.successful = downloadable.isSuccessful();
+            this.outcome = downloadable.getOutcome();
+        }
+    }
+    
+    private static class HostReport
+    {
+        private int files;
+        private long bytes;
+        private long p50;
+        private long p95;
+        private long p99;
+    }
+}
@@ -0,0 +1,208 @@
+package com.mojang.launcher.updater.download;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class DownloadScheduler
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long MAX_IDLE_WAIT = 1000L;
+    private final DownloadTransport transport;
+    private final Map<DownloadPriority, List<DownloadJob>> jobs;
+    private final int[] cursors;
+    private final ReentrantLock lock;
+    private final Condition workAvailable;
+    private int workers;
+    private boolean workerWaiting;
+    
+    public DownloadScheduler(final ThreadPoolExecutor executorService) {
+        this(new ThreadPoolTransport(executorService));
+    }
+    
+    public DownloadScheduler(final DownloadTransport transport) {
+        this.jobs = new EnumMap<DownloadPriority, List<DownloadJob>>(DownloadPriority.class);
+        this.cursors = new int[DownloadPriority.values().length];
+        this.lock = new ReentrantLock();
+        this.workAvailable = this.lock.newCondition();
+        this.transport = transport;
+        for (final DownloadPriority priority : DownloadPriority.values()) {
+            this.jobs.put(priority, new ArrayList<DownloadJob>());
+        }
+    }
+    
+    public DownloadTransport getTransport() {
+        return this.transport;
+    }
+    
+    public int getMaxWorkers() {
+        return this.transport.getMaxWorkers();
+    }
+    
+    public int getWorkers() {
+        this.lock.lock();
+        try {
+            return this.workers;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    public void submit(final DownloadJob job) {
+        this.lock.lock();
+        try {
+            this.jobs.get(job.getPriority()).add(job);
+            DownloadScheduler.LOGGER.debug("Scheduled download job '" + job.getName() + "' as " + job.getPriority() + " (" + this + ")");
+            this.spawnWorkers();
+            this.workAvailable.signalAll();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    void remove(final DownloadJob job) {
+        this.lock.lock();
+        try {
+            this.jobs.get(job.getPriority()).remove(job);
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    private void spawnWorkers() {
+        this.lock.lock();
+        try {
+            int wanted = 0;
+            for (final List<DownloadJob> jobs : this.jobs.values()) {
+                for (final DownloadJob job : jobs) {
+                    wanted += job.getWantedWorkers();
+                }
+            }
+            wanted = Math.min(this.getMaxWorkers(), wanted);
+            while (this.workers < wanted) {
+                ++this.workers;
+                this.transport.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        DownloadScheduler.this.runWorker();
+                    }
+                });
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    private void runWorker() {
+        Work work;
+        while ((work = this.takeWork()) != null) {
+            work.job.runWork(work.downloadable);
+            this.spawnWorkers();
+        }
+    }
+    
+    private Work takeWork() {
+        this.lock.lock();
+        try {
+            boolean waited = false;
+            while (true) {
+                final Work work = this.findWork();
+                if (work != null) {
+                    if (waited) {
+                        this.spawnWorkers();
+                    }
+                    return work;
+                }
+                final long delay = this.getTimeUntilNextRetry();
+                if (delay < 0L || this.workerWaiting) {
+                    --this.workers;
+                    return null;
+                }
+                this.workerWaiting = true;
+                try {
+                    this.workAvailable.await(Math.max(1L, Math.min(MAX_IDLE_WAIT, delay)), TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    --this.workers;
+                    return null;
+                }
+                finally {
+                    this.workerWaiting = false;
+                }
+                waited = true;
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    private Work findWork() {
+        for (final DownloadPriority priority : DownloadPriority.values()) {
+            final List<DownloadJob> jobs = this.jobs.get(priority);
+            final int size = jobs.size();
+            for (int i = 0; i < size; ++i) {
+                final int index = (this.cursors[priority.ordinal()] + i) % size;
+                final DownloadJob job = jobs.get(index);
+                final Downloadable downloadable = job.pollWork();
+                if (downloadable != null) {
+                    this.cursors[priority.ordinal()] = index + 1;
+                    return new Work(job, downloadable);
+                }
+            }
+        }
+        return null;
+    }
+    
+    private long getTimeUntilNextRetry() {
+        long delay = -1L;
+        for (final List<DownloadJob> jobs : this.jobs.values()) {
+            for (final DownloadJob job : jobs) {
+                final long jobDelay = job.getTimeUntilNextRetry();
+                if (jobDelay >= 0L && (delay < 0L || jobDelay < delay)) {
+                    delay = jobDelay;
+                }
+            }
+        }
+        return delay;
+    }
+    
+    @Override
+    public String toString() {
+        this.lock.lock();
+        try {
+            int jobs = 0;
+            for (final List<DownloadJob> list : this.jobs.values()) {
+                jobs += list.size();
+            }
+            return "DownloadScheduler{transport=" + this.transport.getName() + ", workers=" + this.workers + ", maxWorkers=" + this.getMaxWorkers() + ", jobs=" + jobs + '}';
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+    
+    private static class Work
+    {
+        private final DownloadJob job;
+        private final Downloadable downloadable;
+        
+        public Work(final DownloadJob job, final Downloadable downloadable) {
+            this.job = job;
+            this.downloadable = downloadable;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.mojang.launcher.updater.download;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DownloadStats implements DownloadStatsMXBean
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final DownloadStats INSTANCE = new DownloadStats();
+    private static final String OBJECT_NAME = "com.mojang.launcher:type=DownloadStats";
+    private final Set<DownloadJob> activeJobs;
+    private final AtomicLong completedJobs;
+    private final AtomicLong filesDownloaded;
+    private final AtomicLong filesFailed;
+    private final AtomicLong retries;
+    private final AtomicLong bytesDownloaded;
+    private volatile DownloadReport lastReport;
+    private boolean registered;
+    
+    private DownloadStats() {
+        this.activeJobs = Collections.newSetFromMap(new ConcurrentHashMap<DownloadJob, Boolean>());
+        this.completedJobs = new AtomicLong();
+        this.filesDownloaded = new AtomicLong();
+        this.filesFailed = new AtomicLong();
+        this.retries = new AtomicLong();
+        this.bytesDownloaded = new AtomicLong();
+    }
+    
+    public static DownloadStats getInstance() {
+        return DownloadStats.INSTANCE;
+    }
+    
+    public synchronized void register() {
+        if (this.registered) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+            this.registered = true;
+        }
+        catch (JMException e) {
+            DownloadStats.LOGGER.warn("Couldn't register download statistics MBean", e);
+        }
+    }
+    
+    void onJobStarted(final DownloadJob job) {
+        this.activeJobs.add(job);
+    }
+    
+    void onJobFinished(final DownloadJob job, final DownloadReport report) {
+        this.activeJobs.remove(job);
+        this.completedJobs.incrementAndGet();
+        this.lastReport = report;
+    }
+    
+    void onFileDownloaded(final long bytes) {
+        this.filesDownloaded.incrementAndGet();
+        this.bytesDownloaded.addAndGet(bytes);
+    }
+    
+    void onFileFailed() {
+        this.filesFailed.incrementAndGet();
+    }
+    
+    void onRetry() {
+        this.retries.incrementAndGet();
+    }
+    
+    @Override
+    public int getActiveJobs() {
+        return this.activeJobs.size();
+    }
+    
+    @Override
+    public int getActiveDownloads() {
+        int active = 0;
+        for (final DownloadJob job : this.activeJobs) {
+            active += job.getActiveDownloads();
+        }
+        return active;
+    }
+    
+    @Override
+    public long getCompletedJobs() {
+        return this.completedJobs.get();
+    }
+    
+    @Override
+    public long getFilesDownloaded() {
+        return this.filesDownloaded.get();
+    }
+    
+    @Override
+    public long getFilesFailed() {
+        return this.filesFailed.get();
+    }
+    
+    @Override
+    public long getRetries() {
+        return this.retries.get();
+    }
+    
+    @Override
+    public long getBytesDownloaded() {
+        return this.bytesDownloaded.get();
+    }
+    
+    @Override
+    public long getCurrentBytesPerSecond() {
+        long throughput = 0L;
+        for (final DownloadJob job : this.activeJobs) {
+            throughput += job.getThroughput();
+        }
+        return throughput;
+    }
+    
+    @Override
+    public long getConnectionRequests() {
+        return Downloadable.getConnectionPool().getRequests();
+    }
+    
+    @Override
+    public long getReusableConnections() {
+        return Downloadable.getConnectionPool().getReusable();
+    }
+    
+    @Override
+    public long getInFlightWaits() {
+        return InFlightDownload.getWaits();
+    }
+    
+    @Override
+    public String getLastReport() {
+        final DownloadReport report = this.lastReport;
+        return (report == null) ? null : report.toJson();
+    }
+}
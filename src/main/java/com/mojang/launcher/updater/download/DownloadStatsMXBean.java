@@ -0,0 +1,28 @@
+package com.mojang.launcher.updater.download;
+
+public interface DownloadStatsMXBean
+{
+    int getActiveJobs();
+    
+    int getActiveDownloads();
+    
+    long getCompletedJobs();
+    
+    long getFilesDownloaded();
+    
+    long getFilesFailed();
+    
+    long getRetries();
+    
+    long getBytesDownloaded();
+    
+    long getCurrentBytesPerSecond();
+    
+    long getConnectionRequests();
+    
+    long getReusableConnections();
+    
+    long getInFlightWaits();
+    
+    String getLastReport();
+}
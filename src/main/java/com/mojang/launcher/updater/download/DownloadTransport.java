@@ -0,0 +1,10 @@
+package com.mojang.launcher.updater.download;
+
+public interface DownloadTransport
+{
+    String getName();
+    
+    int getMaxWorkers();
+    
+    void execute(final Runnable p0);
+}
@@ -1,20 +1,24 @@
 package com.mojang.launcher.updater.download;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
-import java.math.BigInteger;
 import java.net.HttpURLConnection;
 import java.net.Proxy;
 import java.net.URL;
-import java.security.DigestInputStream;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
 
 public abstract class Downloadable
 {
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final ConnectionPool CONNECTION_POOL = new ConnectionPool(ConnectionPool.MAX_CONNECTIONS_PER_HOST);
+    private static volatile MirrorSelector mirrorSelector = new MirrorSelector();
+    private static final ExecutorService REQUEST_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Hedged Request %d").build());
     private final URL url;
     private final File target;
     private final boolean forceDownload;
@@ -24,6 +28,17 @@ public abstract class Downloadable
     protected int numAttempts;
     private long expectedSize;
     private long endTime;
+    private long attemptTime;
+    private long transferredBytes;
+    private String outcome;
+    private boolean successful;
+    private MessageDigest partialDigest;
+    private long partialLength;
+    private final List<HttpURLConnection> connections;
+    private volatile boolean cancelled;
+    private volatile int responseCode;
+    private volatile URL contactedUrl;
+    private VerifiedFileIndex verifiedFileIndex;
     
     public Downloadable(final Proxy proxy, final URL remoteFile, final File localFile, final boolean forceDownload) {
         this.proxy = proxy;
@@ -31,37 +46,41 @@ public abstract class Downloadable
         this.target = localFile;
         this.forceDownload = forceDownload;
         this.monitor = new ProgressContainer();
+        this.connections = new CopyOnWriteArrayList<HttpURLConnection>();
+        this.responseCode = -1;
     }
     
     public ProgressContainer getMonitor() {
         return this.monitor;
     }
     
-    public long getExpectedSize() {
-        return this.expectedSize;
+    public VerifiedFileIndex getVerifiedFileIndex() {
+        return this.verifiedFileIndex;
     }
     
-    public void setExpectedSize(final long expectedSize) {
-        this.expectedSize = expectedSize;
+    public void setVerifiedFileIndex(final VerifiedFileIndex verifiedFileIndex) {
+        this.verifiedFileIndex = verifiedFileIndex;
     }
     
-    public static String getDigest(final File file, final String algorithm, final int hashLength) {
-        DigestInputStream stream = null;
-        try {
-            stream = new DigestInputStream(new FileInputStream(file), MessageDigest.getInstance(algorithm));
-            final byte[] buffer = new byte[65536];
-            int read;
-            do {
-                read = stream.read(buffer);
-            } while (read > 0);
-        }
-        catch (Exception ignored) {
-            return null;
+    protected String getLocalDigest(final File file, final String algorithm) {
+        if (this.verifiedFileIndex == null) {
+            return TransferEngine.getDigest(file, algorithm);
         }
-        finally {
-            closeSilently(stream);
+        return this.verifiedFileIndex.getDigest(file, algorithm);
+    }
+    
+    protected void recordDigest(final File file, final String algorithm, final String digest) {
+        if (this.verifiedFileIndex != null) {
+            this.verifiedFileIndex.put(file, algorithm, digest);
         }
-        return String.format("%1$0" + hashLength + "x", new BigInteger(1, stream.getMessageDigest().digest()));
+    }
+    
+    public long getExpectedSize() {
+        return this.expectedSize;
+    }
+    
+    public void setExpectedSize(final long expectedSize) {
+        this.expectedSize = expectedSize;
     }
     
     public abstract String download() throws IOException;
@@ -77,7 +96,7 @@ public abstract class Downloadable
     }
     
     protected HttpURLConnection makeConnection(final URL url) throws IOException {
-        final HttpURLConnection connection = (HttpURLConnection)url.openConnection(this.proxy);
+        final HttpURLConnection connection = Downloadable.CONNECTION_POOL.open(Downloadable.mirrorSelector.select(url), this.proxy);
         connection.setUseCaches(false);
         connection.setDefaultUseCaches(false);
         connection.setRequestProperty("Cache-Control", "no-store,max-age=0,no-cache");
@@ -85,9 +104,169 @@ public abstract class Downloadable
         connection.setRequestProperty("Pragma", "no-cache");
         connection.setConnectTimeout(5000);
         connection.setReadTimeout(30000);
+        return this.track(connection);
+    }
+    
+    private HttpURLConnection track(final HttpURLConnection connection) throws IOException {
+        this.connections.add(connection);
+        if (this.cancelled) {
+            connection.disconnect();
+            throw new InterruptedIOException("Download of " + this.url + " was cancelled");
+        }
         return connection;
     }
     
+    public void cancel() {
+        this.cancelled = true;
+        for (final HttpURLConnection connection : this.connections) {
+            connection.disconnect();
+        }
+    }
+    
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+    
+    public int getResponseCode() {
+        return this.responseCode;
+    }
+    
+    public URL getContactedUrl() {
+        return this.contactedUrl;
+    }
+    
+    void forgetConnections() {
+        for (final HttpURLConnection connection : this.connections) {
+            Downloadable.CONNECTION_POOL.forget(connection);
+        }
+        this.connections.clear();
+        this.responseCode = -1;
+        this.contactedUrl = null;
+    }
+    
+    protected HttpURLConnection sendRequest(final HttpURLConnection connection) throws IOException {
+        final URL alternative = Downloadable.mirrorSelector.selectAlternative(connection.getURL());
+        final long hedgeDelay = (alternative == null) ? -1L : Downloadable.mirrorSelector.getHedgeDelay(connection.getURL());
+        this.contactedUrl = connection.getURL();
+        if (hedgeDelay < 0L) {
+            awaitResponse(connection);
+            this.responseCode = connection.getResponseCode();
+            return connection;
+        }
+        final Map<String, List<String>> properties = connection.getRequestProperties();
+        final CompletionService<HttpURLConnection> responses = new ExecutorCompletionService<HttpURLConnection>(Downloadable.REQUEST_EXECUTOR);
+        final Future<HttpURLConnection> primary = responses.submit(createRequest(connection));
+        Future<HttpURLConnection> secondary = null;
+        Future<HttpURLConnection> response;
+        HttpURLConnection winner;
+        try {
+            response = responses.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+            if (response == null) {
+                Downloadable.LOGGER.debug("No response from " + connection.getURL() + " after " + hedgeDelay + " ms, hedging with " + alternative);
+                secondary = responses.submit(createRequest(this.copyConnection(connection, alternative, properties)));
+                response = responses.take();
+            }
+            try {
+                winner = response.get();
+            }
+            catch (ExecutionException e) {
+                if (secondary == null) {
+                    throw e;
+                }
+                response = responses.take();
+                winner = response.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while requesting " + connection.getURL());
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            throw new IOException("Couldn't request " + connection.getURL(), e.getCause());
+        }
+        if (secondary != null) {
+            releaseLater((response == primary) ? secondary : primary);
+        }
+        this.contactedUrl = winner.getURL();
+        this.responseCode = winner.getResponseCode();
+        return winner;
+    }
+    
+    private static void releaseLater(final Future<HttpURLConnection> request) {
+        Downloadable.REQUEST_EXECUTOR.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Downloadable.CONNECTION_POOL.release(request.get());
+                }
+                catch (Exception ignored) { }
+            }
+        });
+    }
+    
+    private static Callable<HttpURLConnection> createRequest(final HttpURLConnection connection) {
+        return new Callable<HttpURLConnection>() {
+            @Override
+            public HttpURLConnection call() throws Exception {
+                awaitResponse(connection);
+                return connection;
+            }
+        };
+    }
+    
+    private static void awaitResponse(final HttpURLConnection connection) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            final int status = connection.getResponseCode();
+            if (status / 100 == 5) {
+                Downloadable.mirrorSelector.recordFailure(connection.getURL());
+            }
+            else {
+                Downloadable.mirrorSelector.recordLatency(connection.getURL(), (System.nanoTime() - start) / 1000000L);
+            }
+        }
+        catch (IOException e) {
+            Downloadable.mirrorSelector.recordFailure(connection.getURL());
+            throw e;
+        }
+    }
+    
+    private HttpURLConnection copyConnection(final HttpURLConnection source, final URL url, final Map<String, List<String>> properties) throws IOException {
+        final HttpURLConnection connection = Downloadable.CONNECTION_POOL.open(url, this.proxy);
+        connection.setUseCaches(source.getUseCaches());
+        connection.setConnectTimeout(source.getConnectTimeout());
+        connection.setReadTimeout(source.getReadTimeout());
+        for (final Map.Entry<String, List<String>> property : properties.entrySet()) {
+            for (final String value : property.getValue()) {
+                connection.addRequestProperty(property.getKey(), value);
+            }
+        }
+        return this.track(connection);
+    }
+    
+    protected InputStream getInputStream(final HttpURLConnection connection) throws IOException {
+        return Downloadable.CONNECTION_POOL.getInputStream(connection);
+    }
+    
+    protected void releaseConnection(final HttpURLConnection connection) {
+        Downloadable.CONNECTION_POOL.release(connection);
+    }
+    
+    public static ConnectionPool getConnectionPool() {
+        return Downloadable.CONNECTION_POOL;
+    }
+    
+    public static MirrorSelector getMirrorSelector() {
+        return Downloadable.mirrorSelector;
+    }
+    
+    public static void setMirrorSelector(final MirrorSelector mirrorSelector) {
+        Downloadable.mirrorSelector = mirrorSelector;
+    }
+    
     public URL getUrl() {
         return this.url;
     }
@@ -117,28 +296,114 @@ public abstract class Downloadable
         }
     }
     
-    public static String copyAndDigest(final InputStream inputStream, final OutputStream outputStream, final String algorithm, final int hashLength) throws IOException {
-        MessageDigest digest;
-        try {
-            digest = MessageDigest.getInstance(algorithm);
+    protected File getPartialTarget() {
+        return new File(this.target.getParentFile(), this.target.getName() + ".part");
+    }
+    
+    protected HttpURLConnection makeResumableConnection(final URL url, final String algorithm) throws IOException {
+        final File partial = this.getPartialTarget();
+        if (this.partialDigest == null || !this.partialDigest.getAlgorithm().equals(algorithm) || !partial.isFile() || partial.length() < this.partialLength) {
+            this.partialDigest = TransferEngine.createDigest(algorithm);
+            this.partialLength = 0L;
+            if (partial.isFile()) {
+                this.partialLength = TransferEngine.update(partial, this.partialDigest);
+            }
         }
-        catch (NoSuchAlgorithmException e) {
-            closeSilently(inputStream);
-            closeSilently(outputStream);
-            throw new RuntimeException("Missing Digest." + algorithm, e);
+        else if (partial.length() > this.partialLength) {
+            final RandomAccessFile file = new RandomAccessFile(partial, "rw");
+            try {
+                file.setLength(this.partialLength);
+            }
+            finally {
+                closeSilently(file);
+            }
+        }
+        final HttpURLConnection connection = this.makeConnection(url);
+        if (this.partialLength > 0L) {
+            Downloadable.LOGGER.info("Resuming " + this.target + " from byte " + this.partialLength);
+            connection.setRequestProperty("Range", "bytes=" + this.partialLength + "-");
+        }
+        return connection;
+    }
+    
+    protected String copyToPartial(final HttpURLConnection connection) throws IOException {
+        final File partial = this.getPartialTarget();
+        final boolean resumed = this.partialLength > 0L && connection.getResponseCode() == 206;
+        if (resumed) {
+            final String range = connection.getHeaderField("Content-Range");
+            if (range == null || !range.startsWith("bytes " + this.partialLength + "-")) {
+                this.releaseConnection(connection);
+                this.discardPartial();
+                throw new IOException("Server resumed " + this.url + " at the wrong offset (" + range + ")");
+            }
+        }
+        if (!resumed) {
+            this.partialDigest.reset();
+            this.partialLength = 0L;
+        }
+        if (this.expectedSize == 0L && connection.getContentLength() >= 0) {
+            this.setExpectedSize(this.partialLength + connection.getContentLength());
         }
-        final byte[] buffer = new byte[65536];
+        if (this.expectedSize > 0L) {
+            this.monitor.setTotal(this.expectedSize);
+        }
+        final long contentLength = connection.getContentLength();
+        final long start = this.partialLength;
+        final InputStream inputStream = new MonitoringInputStream(this.getInputStream(connection), this.monitor);
+        FileOutputStream outputStream = null;
         try {
-            for (int read = inputStream.read(buffer); read >= 1; read = inputStream.read(buffer)) {
-                digest.update(buffer, 0, read);
-                outputStream.write(buffer, 0, read);
+            outputStream = new FileOutputStream(partial, resumed);
+            this.partialLength += TransferEngine.transfer(inputStream, outputStream.getChannel(), this.partialDigest);
+        }
+        catch (IOException e) {
+            if (outputStream != null) {
+                try {
+                    this.partialLength = outputStream.getChannel().position();
+                }
+                catch (IOException ex) {
+                    this.partialDigest = null;
+                }
             }
+            throw e;
         }
         finally {
             closeSilently(inputStream);
             closeSilently(outputStream);
         }
-        return String.format("%1$0" + hashLength + "x", new BigInteger(1, digest.digest()));
+        if (contentLength >= 0L && this.partialLength - start < contentLength) {
+            throw new EOFException("Connection closed after " + (this.partialLength - start) + " of " + contentLength + " bytes of " + this.url);
+        }
+        final MessageDigest digest;
+        try {
+            digest = (MessageDigest)this.partialDigest.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new RuntimeException("Digest." + this.partialDigest.getAlgorithm() + " cannot be resumed", e);
+        }
+        return TransferEngine.toHex(digest.digest());
+    }
+    
+    protected void commitPartial() throws IOException {
+        final File partial = this.getPartialTarget();
+        if (!partial.renameTo(this.target)) {
+            if (this.target.isFile() && !this.target.delete()) {
+                throw new IOException("Couldn't replace " + this.target + " with " + partial);
+            }
+            if (!partial.renameTo(this.target)) {
+                throw new IOException("Couldn't move " + partial + " to " + this.target);
+            }
+        }
+        this.partialDigest = null;
+        this.partialLength = 0L;
+    }
+    
+    protected void discardPartial() {
+        final File partial = this.getPartialTarget();
+        if (partial.isFile() && !partial.delete()) {
+            Downloadable.LOGGER.warn("Couldn't delete partial download " + partial);
+        }
+        this.partialDigest = null;
+        this.partialLength = 0L;
     }
     
     protected void ensureFileWritable(final File target) {
@@ -172,4 +437,33 @@ public abstract class Downloadable
     public void setEndTime(final long endTime) {
         this.endTime = endTime;
     }
+    
+    public long getAttemptTime() {
+        return this.attemptTime;
+    }
+    
+    public void setAttemptTime(final long attemptTime) {
+        this.attemptTime = attemptTime;
+    }
+    
+    public long getTransferredBytes() {
+        return this.transferredBytes;
+    }
+    
+    public void setTransferredBytes(final long transferredBytes) {
+        this.transferredBytes = transferredBytes;
+    }
+    
+    public String getOutcome() {
+        return this.outcome;
+    }
+    
+    public boolean isSuccessful() {
+        return this.successful;
+    }
+    
+    public void setOutcome(final String outcome, final boolean successful) {
+        this.outcome = outcome;
+        this.successful = successful;
+    }
 }
@@ -1,7 +1,6 @@
 package com.mojang.launcher.updater.download;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -19,17 +18,18 @@ public class EtagDownloadable extends Downloadable
         ++this.numAttempts;
         this.ensureFileWritable(this.getTarget());
         try {
-            final HttpURLConnection connection = this.makeConnection(this.getUrl());
+            final HttpURLConnection connection = this.sendRequest(this.makeConnection(this.getUrl()));
             final int status = connection.getResponseCode();
             if (status == 304) {
+                this.releaseConnection(connection);
                 return "Used own copy as it matched etag";
             }
             if (status / 100 == 2) {
                 this.updateExpectedSize(connection);
-                final InputStream inputStream = new MonitoringInputStream(connection.getInputStream(), this.getMonitor());
-                final FileOutputStream outputStream = new FileOutputStream(this.getTarget());
-                final String md5 = Downloadable.copyAndDigest(inputStream, outputStream, "MD5", 32);
+                final InputStream inputStream = new MonitoringInputStream(this.getInputStream(connection), this.getMonitor());
+                final String md5 = TransferEngine.copyAndDigest(inputStream, this.getTarget(), "MD5");
                 final String etag = getEtag(connection.getHeaderField("ETag"));
+                this.recordDigest(this.getTarget(), "MD5", md5);
                 if (etag.contains("-")) {
                     return "Didn't have etag so assuming our copy is good";
                 }
@@ -39,6 +39,7 @@ public class EtagDownloadable extends Downloadable
                 throw new RuntimeException(String.format("E-tag did not match downloaded MD5 (ETag was %s, downloaded %s)", etag, md5));
             }
             else {
+                this.releaseConnection(connection);
                 if (this.getTarget().isFile()) {
                     return "Couldn't connect to server (responded with " + status + ") but have local file, assuming it's good";
                 }
@@ -57,7 +58,7 @@ public class EtagDownloadable extends Downloadable
     protected HttpURLConnection makeConnection(final URL url) throws IOException {
         final HttpURLConnection connection = super.makeConnection(url);
         if (!this.shouldIgnoreLocal() && this.getTarget().isFile()) {
-            connection.setRequestProperty("If-None-Match", Downloadable.getDigest(this.getTarget(), "MD5", 32));
+            connection.setRequestProperty("If-None-Match", this.getLocalDigest(this.getTarget(), "MD5"));
         }
         return connection;
     }
@@ -0,0 +1,141 @@
+package com.mojang.launcher.updater.download;
+
+import javax.net.ssl.SSLException;
+import java.io.EOFException;
+import java.net.ProtocolException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class HostCircuitBreaker
+{
+    private static final Map<String, HostCircuitBreaker> BREAKERS = new HashMap<String, HostCircuitBreaker>();
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long MIN_OPEN_TIME = 5000L;
+    private static final long MAX_OPEN_TIME = 60000L;
+    private static final long PROBE_WAIT_TIME = 1000L;
+    private static final int MAX_REOPENS = 2;
+    private final String host;
+    private State state;
+    private int consecutiveFailures;
+    private int reopens;
+    private long openTime;
+    private long openUntil;
+    private boolean probeInFlight;
+    
+    private HostCircuitBreaker(final String host) {
+        this.state = State.CLOSED;
+        this.openTime = MIN_OPEN_TIME;
+        this.host = host;
+    }
+    
+    public static HostCircuitBreaker forUrl(final URL url) {
+        final String host = url.getHost();
+        synchronized (HostCircuitBreaker.BREAKERS) {
+            HostCircuitBreaker breaker = HostCircuitBreaker.BREAKERS.get(host);
+            if (breaker == null) {
+                breaker = new HostCircuitBreaker(host);
+                HostCircuitBreaker.BREAKERS.put(host, breaker);
+            }
+            return breaker;
+        }
+    }
+    
+    public String getHost() {
+        return this.host;
+    }
+    
+    public synchronized State getState() {
+        return this.state;
+    }
+    
+    public static boolean isHostFailure(final Throwable t, final int responseCode) {
+        if (responseCode / 100 == 5) {
+            return true;
+        }
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketException || cause instanceof SocketTimeoutException || cause instanceof UnknownHostException || cause instanceof SSLException || cause instanceof ProtocolException || cause instanceof EOFException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public synchronized boolean isGivingUp() {
+        return this.state != State.CLOSED && this.reopens >= MAX_REOPENS;
+    }
+    
+    public synchronized long getWaitTime() {
+        if (this.state == State.CLOSED) {
+            return 0L;
+        }
+        final long now = System.currentTimeMillis();
+        if (this.state == State.OPEN) {
+            if (now < this.openUntil) {
+                return this.openUntil - now;
+            }
+            this.state = State.HALF_OPEN;
+        }
+        if (this.probeInFlight) {
+            return PROBE_WAIT_TIME;
+        }
+        this.probeInFlight = true;
+        return 0L;
+    }
+    
+    public synchronized boolean onSuccess() {
+        final boolean recovered = this.state != State.CLOSED;
+        this.state = State.CLOSED;
+        this.consecutiveFailures = 0;
+        this.reopens = 0;
+        this.openTime = MIN_OPEN_TIME;
+        this.probeInFlight = false;
+        return recovered;
+    }
+    
+    public synchronized boolean onFailure() {
+        ++this.consecutiveFailures;
+        if (this.state == State.HALF_OPEN) {
+            this.probeInFlight = false;
+            ++this.reopens;
+            this.openTime = Math.min(MAX_OPEN_TIME, this.openTime * 2L);
+            this.open();
+            return true;
+        }
+        if (this.state == State.CLOSED && this.consecutiveFailures >= FAILURE_THRESHOLD) {
+            this.open();
+            return true;
+        }
+        return false;
+    }
+    
+    public synchronized void cancelProbe() {
+        if (this.state == State.HALF_OPEN) {
+            this.probeInFlight = false;
+        }
+    }
+    
+    private void open() {
+        this.state = State.OPEN;
+        this.openUntil = System.currentTimeMillis() + this.openTime;
+    }
+    
+    public synchronized long getOpenTime() {
+        return this.openTime;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "HostCircuitBreaker{host='" + this.host + '\'' + ", state=" + this.state + ", consecutiveFailures=" + this.consecutiveFailures + '}';
+    }
+    
+    public enum State
+    {
+        CLOSED, 
+        OPEN, 
+        HALF_OPEN;
+    }
+}
@@ -0,0 +1,88 @@
+package com.mojang.launcher.updater.download;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class InFlightDownload
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Map<File, InFlightDownload> DOWNLOADS = new HashMap<File, InFlightDownload>();
+    private static final long CANCEL_CHECK_INTERVAL = 100L;
+    private static long waits;
+    private final File target;
+    private final String job;
+    private final CountDownLatch released;
+    
+    private InFlightDownload(final File target, final String job) {
+        this.released = new CountDownLatch(1);
+        this.target = target;
+        this.job = job;
+    }
+    
+    public static InFlightDownload claim(final Downloadable downloadable, final String job) throws InterruptedIOException {
+        final File target = downloadable.getTarget().getAbsoluteFile();
+        while (true) {
+            final InFlightDownload current;
+            synchronized (InFlightDownload.DOWNLOADS) {
+                current = InFlightDownload.DOWNLOADS.get(target);
+                if (current == null) {
+                    final InFlightDownload download = new InFlightDownload(target, job);
+                    InFlightDownload.DOWNLOADS.put(target, download);
+                    return download;
+                }
+                ++InFlightDownload.waits;
+            }
+            InFlightDownload.LOGGER.info("Waiting for job '" + current.job + "' to finish downloading " + target + " before job '" + job + "' uses it");
+            current.await(downloadable);
+        }
+    }
+    
+    private void await(final Downloadable downloadable) throws InterruptedIOException {
+        try {
+            while (!this.released.await(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+                if (downloadable.isCancelled()) {
+                    throw new InterruptedIOException("Download of " + downloadable.getUrl() + " was cancelled");
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + this.target);
+        }
+    }
+    
+    public void release() {
+        synchronized (InFlightDownload.DOWNLOADS) {
+            if (InFlightDownload.DOWNLOADS.get(this.target) == this) {
+                InFlightDownload.DOWNLOADS.remove(this.target);
+            }
+        }
+        this.released.countDown();
+    }
+    
+    public static long getWaits() {
+        synchronized (InFlightDownload.DOWNLOADS) {
+            return InFlightDownload.waits;
+        }
+    }
+    
+    public File getTarget() {
+        return this.target;
+    }
+    
+    public String getJob() {
+        return this.job;
+    }
+    
+    @Override
+    public String toString() {
+        return "InFlightDownload{target=" + this.target + ", job='" + this.job + '\'' + '}';
+    }
+}
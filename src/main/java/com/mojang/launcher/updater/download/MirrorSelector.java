@@ -0,0 +1,201 @@
+package com.mojang.launcher.updater.download;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MirrorSelector
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final double LATENCY_WEIGHT = 0.2;
+    private static final double FAILURE_PENALTY = 2000.0;
+    private static final int LATENCY_SAMPLES = 100;
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final long MIN_HEDGE_DELAY = 50L;
+    private final Map<String, MirrorGroup> groups;
+    
+    public MirrorSelector() {
+        this.groups = new LinkedHashMap<String, MirrorGroup>();
+    }
+    
+    public synchronized void setMirrors(final String origin, final List<String> mirrors) {
+        final List<Mirror> members = new ArrayList<Mirror>();
+        for (final String mirror : mirrors) {
+            members.add(new Mirror(mirror.endsWith("/") ? mirror : (mirror + "/")));
+        }
+        members.add(new Mirror(origin));
+        this.groups.put(origin, new MirrorGroup(members));
+        MirrorSelector.LOGGER.info("Using mirrors " + mirrors + " for " + origin);
+    }
+    
+    public synchronized URL select(final URL url) {
+        final String address = url.toString();
+        for (final MirrorGroup group : this.groups.values()) {
+            final Mirror current = group.find(address);
+            if (current != null) {
+                return group.rewrite(address, current, group.select(null));
+            }
+        }
+        return url;
+    }
+    
+    public synchronized URL selectAlternative(final URL url) {
+        final String address = url.toString();
+        for (final MirrorGroup group : this.groups.values()) {
+            final Mirror current = group.find(address);
+            if (current != null) {
+                final Mirror alternative = group.select(current);
+                return (alternative == null) ? null : group.rewrite(address, current, alternative);
+            }
+        }
+        return null;
+    }
+    
+    public synchronized long getHedgeDelay(final URL url) {
+        final String address = url.toString();
+        for (final MirrorGroup group : this.groups.values()) {
+            if (group.find(address) != null) {
+                return group.getHedgeDelay();
+            }
+        }
+        return -1L;
+    }
+    
+    public synchronized void recordLatency(final URL url, final long latency) {
+        final String address = url.toString();
+        for (final MirrorGroup group : this.groups.values()) {
+            final Mirror mirror = group.find(address);
+            if (mirror != null) {
+                mirror.record(latency);
+                group.addSample(latency);
+                return;
+            }
+        }
+    }
+    
+    public synchronized void recordFailure(final URL url) {
+        final String address = url.toString();
+        for (final MirrorGroup group : this.groups.values()) {
+            final Mirror mirror = group.find(address);
+            if (mirror != null) {
+                mirror.penalize();
+                MirrorSelector.LOGGER.debug("Request to mirror " + mirror.base + " failed; latency estimate is now " + (long)mirror.latency + " ms");
+                return;
+            }
+        }
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "MirrorSelector{groups=" + this.groups + '}';
+    }
+    
+    private static class MirrorGroup
+    {
+        private final List<Mirror> mirrors;
+        private final long[] samples;
+        private int sampleCount;
+        private int nextSample;
+        
+        public MirrorGroup(final List<Mirror> mirrors) {
+            this.samples = new long[LATENCY_SAMPLES];
+            this.mirrors = mirrors;
+        }
+        
+        public Mirror find(final String address) {
+            for (final Mirror mirror : this.mirrors) {
+                if (address.startsWith(mirror.base)) {
+                    return mirror;
+                }
+            }
+            return null;
+        }
+        
+        public Mirror select(final Mirror exclude) {
+            Mirror best = null;
+            for (final Mirror mirror : this.mirrors) {
+                if (mirror == exclude) {
+                    continue;
+                }
+                if (!mirror.measured) {
+                    return mirror;
+                }
+                if (best == null || mirror.latency < best.latency) {
+                    best = mirror;
+                }
+            }
+            return best;
+        }
+        
+        public URL rewrite(final String address, final Mirror current, final Mirror target) {
+            if (target == null || target == current) {
+                return createUrl(address);
+            }
+            return createUrl(target.base + address.substring(current.base.length()));
+        }
+        
+        private static URL createUrl(final String address) {
+            try {
+                return new URL(address);
+            }
+            catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Invalid mirror URL " + address, e);
+            }
+        }
+        
+        public void addSample(final long latency) {
+            this.samples[this.nextSample] = latency;
+            this.nextSample = (this.nextSample + 1) % this.samples.length;
+            if (this.sampleCount < this.samples.length) {
+                ++this.sampleCount;
+            }
+        }
+        
+        public long getHedgeDelay() {
+            if (this.mirrors.size() < 2 || this.sampleCount < MIN_HEDGE_SAMPLES) {
+                return -1L;
+            }
+            final long[] sorted = Arrays.copyOf(this.samples, this.sampleCount);
+            Arrays.sort(sorted);
+            return Math.max(MIN_HEDGE_DELAY, sorted[(int)Math.ceil(sorted.length * 0.95) - 1]);
+        }
+        
+        @Override
+        public String toString() {
+            return this.mirrors.toString();
+        }
+    }
+    
+    private static class Mirror
+    {
+        private final String base;
+        private double latency;
+        private boolean measured;
+        
+        public Mirror(final String base) {
+            this.base = base;
+        }
+        
+        public void record(final long sample) {
+            this.latency = this.measured ? (this.latency + LATENCY_WEIGHT * (sample - this.latency)) : sample;
+            this.measured = true;
+        }
+        
+        public void penalize() {
+            this.latency = Math.max(this.latency * 2.0, FAILURE_PENALTY);
+            this.measured = true;
+        }
+        
+        @Override
+        public String toString() {
+            return this.base + "=" + (this.measured ? ((long)this.latency + "ms") : "?");
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class MonitoringInputStream extends FilterInputStream
         final int result = this.in.read();
         if (result >= 0) {
             this.monitor.addProgress(1L);
+            this.throttle(1L);
         }
         return result;
     }
@@ -27,6 +28,7 @@ public class MonitoringInputStream extends FilterInputStream
         final int size = this.in.read(buffer);
         if (size >= 0) {
             this.monitor.addProgress(size);
+            this.throttle(size);
         }
         return size;
     }
@@ -36,6 +38,7 @@ public class MonitoringInputStream extends FilterInputStream
         final int size = this.in.read(buffer, off, len);
         if (size > 0) {
             this.monitor.addProgress(size);
+            this.throttle(size);
         }
         return size;
     }
@@ -45,7 +48,15 @@ public class MonitoringInputStream extends FilterInputStream
         final long skipped = super.skip(size);
         if (skipped > 0L) {
             this.monitor.addProgress(skipped);
+            this.throttle(skipped);
         }
         return skipped;
     }
+    
+    private void throttle(final long size) throws IOException {
+        final DownloadJob job = this.monitor.getJob();
+        if (job != null) {
+            job.throttle(size);
+        }
+    }
 }
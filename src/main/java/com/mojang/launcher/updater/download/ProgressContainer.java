@@ -11,9 +11,12 @@ public class ProgressContainer
     }
     
     public void setJob(final DownloadJob job) {
+        if (this.job != null) {
+            this.job.addProgress(-this.current, -this.total);
+        }
         this.job = job;
         if (job != null) {
-            job.updateProgress();
+            job.addProgress(this.current, this.total);
         }
     }
     
@@ -22,9 +25,10 @@ public class ProgressContainer
     }
     
     public void setTotal(final long total) {
+        final long previous = this.total;
         this.total = total;
         if (this.job != null) {
-            this.job.updateProgress();
+            this.job.addProgress(0L, total - previous);
         }
     }
     
@@ -33,12 +37,14 @@ public class ProgressContainer
     }
     
     public void setCurrent(final long current) {
+        final long previousCurrent = this.current;
+        final long previousTotal = this.total;
         this.current = current;
         if (current > this.total) {
             this.total = current;
         }
         if (this.job != null) {
-            this.job.updateProgress();
+            this.job.addProgress(current - previousCurrent, this.total - previousTotal);
         }
     }
     
@@ -0,0 +1,35 @@
+package com.mojang.launcher.updater.download;
+
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+
+public enum SchedulingPolicy
+{
+    FIFO, 
+    LARGEST_FIRST;
+    
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long UNKNOWN_SIZE = 5242880L;
+    private static final Comparator<Downloadable> LARGEST_FIRST_COMPARATOR = new Comparator<Downloadable>() {
+        @Override
+        public int compare(final Downloadable a, final Downloadable b) {
+            final long sizeA = getSize(a);
+            final long sizeB = getSize(b);
+            return (sizeA > sizeB) ? -1 : ((sizeA < sizeB) ? 1 : 0);
+        }
+    };
+    
+    private static long getSize(final Downloadable downloadable) {
+        final long size = downloadable.getExpectedSize();
+        return (size > 0L) ? size : UNKNOWN_SIZE;
+    }
+    
+    public Queue<Downloadable> createQueue() {
+        if (this == SchedulingPolicy.LARGEST_FIRST) {
+            return new PriorityBlockingQueue<Downloadable>(INITIAL_CAPACITY, SchedulingPolicy.LARGEST_FIRST_COMPARATOR);
+        }
+        return new ConcurrentLinkedQueue<Downloadable>();
+    }
+}
@@ -0,0 +1,32 @@
+package com.mojang.launcher.updater.download;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class ThreadPoolTransport implements DownloadTransport
+{
+    private final ThreadPoolExecutor executorService;
+    
+    public ThreadPoolTransport(final ThreadPoolExecutor executorService) {
+        this.executorService = executorService;
+    }
+    
+    @Override
+    public String getName() {
+        return "thread pool";
+    }
+    
+    @Override
+    public int getMaxWorkers() {
+        return this.executorService.getMaximumPoolSize();
+    }
+    
+    @Override
+    public void execute(final Runnable task) {
+        this.executorService.execute(task);
+    }
+    
+    @Override
+    public String toString() {
+        return "ThreadPoolTransport{maxWorkers=" + this.getMaxWorkers() + '}';
+    }
+}
@@ -0,0 +1,159 @@
+package com.mojang.launcher.updater.download;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class TransferEngine
+{
+    private static final int BUFFER_SIZE = 65536;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final Queue<ByteBuffer> BUFFERS = new ConcurrentLinkedQueue<ByteBuffer>();
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS = new ThreadLocal<Map<String, MessageDigest>>() {
+        @Override
+        protected Map<String, MessageDigest> initialValue() {
+            return new HashMap<String, MessageDigest>();
+        }
+    };
+    
+    private TransferEngine() {
+    }
+    
+    public static MessageDigest getThreadDigest(final String algorithm) {
+        final Map<String, MessageDigest> digests = TransferEngine.DIGESTS.get();
+        MessageDigest digest = digests.get(algorithm);
+        if (digest == null) {
+            digest = createDigest(algorithm);
+            digests.put(algorithm, digest);
+        }
+        else {
+            digest.reset();
+        }
+        return digest;
+    }
+    
+    public static MessageDigest createDigest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Missing Digest." + algorithm, e);
+        }
+    }
+    
+    public static String toHex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[i * 2] = TransferEngine.HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = TransferEngine.HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+    
+    private static ByteBuffer acquireBuffer() {
+        final ByteBuffer buffer = TransferEngine.BUFFERS.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        buffer.clear();
+        return buffer;
+    }
+    
+    private static void releaseBuffer(final ByteBuffer buffer) {
+        TransferEngine.BUFFERS.offer(buffer);
+    }
+    
+    public static long transfer(final InputStream inputStream, final FileChannel channel, final MessageDigest digest) throws IOException {
+        final ByteBuffer buffer = acquireBuffer();
+        final byte[] array = buffer.array();
+        long transferred = 0L;
+        try {
+            int read;
+            while ((read = inputStream.read(array, 0, array.length)) >= 0) {
+                final long position = channel.position();
+                buffer.clear();
+                buffer.limit(read);
+                try {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                catch (IOException e) {
+                    channel.truncate(position);
+                    throw e;
+                }
+                if (digest != null) {
+                    digest.update(array, 0, read);
+                }
+                transferred += read;
+            }
+        }
+        finally {
+            releaseBuffer(buffer);
+        }
+        return transferred;
+    }
+    
+    public static long update(final File file, final MessageDigest digest) throws IOException {
+        final FileInputStream inputStream = new FileInputStream(file);
+        final FileChannel channel = inputStream.getChannel();
+        final ByteBuffer buffer = acquireBuffer();
+        final byte[] array = buffer.array();
+        long total = 0L;
+        try {
+            int read;
+            while ((read = channel.read(buffer)) >= 0) {
+                digest.update(array, 0, read);
+                total += read;
+                buffer.clear();
+            }
+        }
+        finally {
+            releaseBuffer(buffer);
+            Downloadable.closeSilently(inputStream);
+        }
+        return total;
+    }
+    
+    public static String copyAndDigest(final InputStream inputStream, final File target, final String algorithm) throws IOException {
+        final MessageDigest digest = getThreadDigest(algorithm);
+        FileOutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(target);
+            transfer(inputStream, outputStream.getChannel(), digest);
+        }
+        catch (IOException e) {
+            Downloadable.closeSilently(outputStream);
+            FileUtils.deleteQuietly(target);
+            throw e;
+        }
+        finally {
+            Downloadable.closeSilently(inputStream);
+            Downloadable.closeSilently(outputStream);
+        }
+        return toHex(digest.digest());
+    }
+    
+    public static String getDigest(final File file, final String algorithm) {
+        final MessageDigest digest = getThreadDigest(algorithm);
+        try {
+            update(file, digest);
+        }
+        catch (IOException ignored) {
+            return null;
+        }
+        return toHex(digest.digest());
+    }
+}
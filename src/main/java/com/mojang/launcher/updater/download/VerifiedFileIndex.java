@@ -0,0 +1,161 @@
+package com.mojang.launcher.updater.download;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class VerifiedFileIndex
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long DEFAULT_REVERIFY_INTERVAL = TimeUnit.DAYS.toMillis(30L);
+    private final File file;
+    private final Gson gson;
+    private final Map<String, Entry> entries;
+    private long reverifyInterval;
+    private boolean loaded;
+    private boolean dirty;
+    private long hits;
+    private long misses;
+    
+    public VerifiedFileIndex(final File file) {
+        this.gson = new Gson();
+        this.entries = new HashMap<String, Entry>();
+        this.reverifyInterval = DEFAULT_REVERIFY_INTERVAL;
+        this.file = file;
+    }
+    
+    public synchronized long getReverifyInterval() {
+        return this.reverifyInterval;
+    }
+    
+    public synchronized void setReverifyInterval(final long reverifyInterval) {
+        this.reverifyInterval = reverifyInterval;
+    }
+    
+    public synchronized void load() {
+        if (this.loaded) {
+            return;
+        }
+        this.loaded = true;
+        if (!this.file.isFile()) {
+            return;
+        }
+        try {
+            final Map<String, Entry> entries = this.gson.fromJson(FileUtils.readFileToString(this.file), new TypeToken<Map<String, Entry>>() {}.getType());
+            if (entries != null) {
+                this.entries.putAll(entries);
+            }
+        }
+        catch (IOException e) {
+            VerifiedFileIndex.LOGGER.warn("Couldn't read verified file index " + this.file, e);
+        }
+        catch (JsonParseException e) {
+            VerifiedFileIndex.LOGGER.warn("Verified file index " + this.file + " is corrupt, ignoring it", e);
+        }
+    }
+    
+    public synchronized void save() {
+        if (!this.dirty) {
+            return;
+        }
+        try {
+            FileUtils.writeStringToFile(this.file, this.gson.toJson(this.entries));
+            this.dirty = false;
+        }
+        catch (IOException e) {
+            VerifiedFileIndex.LOGGER.warn("Couldn't save verified file index " + this.file, e);
+        }
+    }
+    
+    public String getDigest(final File file, final String algorithm) {
+        final String known = this.getKnownDigest(file, algorithm);
+        if (known != null) {
+            return known;
+        }
+        final String digest = TransferEngine.getDigest(file, algorithm);
+        if (digest != null) {
+            this.put(file, algorithm, digest);
+        }
+        return digest;
+    }
+    
+    public synchronized String getKnownDigest(final File file, final String algorithm) {
+        this.load();
+        final Entry entry = this.entries.get(file.getAbsolutePath());
+        if (entry == null || this.reverifyInterval <= 0L || System.currentTimeMillis() - entry.verified > this.reverifyInterval || !entry.matches(file)) {
+            ++this.misses;
+            return null;
+        }
+        final String digest = entry.digests.get(algorithm);
+        if (digest == null) {
+            ++this.misses;
+            return null;
+        }
+        ++this.hits;
+        return digest;
+    }
+    
+    public synchronized void put(final File file, final String algorithm, final String digest) {
+        this.load();
+        final String key = file.getAbsolutePath();
+        Entry entry = this.entries.get(key);
+        if (entry == null || !entry.matches(file)) {
+            entry = new Entry(file);
+            this.entries.put(key, entry);
+        }
+        entry.digests.put(algorithm, digest);
+        entry.verified = System.currentTimeMillis();
+        this.dirty = true;
+    }
+    
+    public synchronized void remove(final File file) {
+        this.load();
+        if (this.entries.remove(file.getAbsolutePath()) != null) {
+            this.dirty = true;
+        }
+    }
+    
+    public synchronized long getHits() {
+        return this.hits;
+    }
+    
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "VerifiedFileIndex{file=" + this.file + ", entries=" + this.entries.size() + ", hits=" + this.hits + ", misses=" + this.misses + '}';
+    }
+    
+    private static class Entry
+    {
+        private long size;
+        private long lastModified;
+        private long verified;
+        private Map<String, String> digests;
+        
+        public Entry() {
+            this.digests = new HashMap<String, String>();
+        }
+        
+        public Entry(final File file) {
+            this.digests = new HashMap<String, String>();
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+        }
+        
+        public boolean matches(final File file) {
+            return this.digests != null && this.lastModified != 0L && file.lastModified() == this.lastModified && file.length() == this.size;
+        }
+    }
+}
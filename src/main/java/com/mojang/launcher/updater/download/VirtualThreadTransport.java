@@ -0,0 +1,59 @@
+package com.mojang.launcher.updater.download;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+public class VirtualThreadTransport implements DownloadTransport
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private final ExecutorService executorService;
+    private final int maxWorkers;
+    
+    private VirtualThreadTransport(final ExecutorService executorService, final int maxWorkers) {
+        this.executorService = executorService;
+        this.maxWorkers = maxWorkers;
+    }
+    
+    public static VirtualThreadTransport create(final int maxWorkers) {
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, Long.TYPE).invoke(builder, "Download Worker ", 0L);
+            final ThreadFactory factory = (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+            final ExecutorService executorService = (ExecutorService)Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+            return new VirtualThreadTransport(executorService, maxWorkers);
+        }
+        catch (Exception e) {
+            VirtualThreadTransport.LOGGER.debug("Virtual threads are not available on this runtime (" + e + ")");
+            return null;
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "virtual thread";
+    }
+    
+    @Override
+    public int getMaxWorkers() {
+        return this.maxWorkers;
+    }
+    
+    @Override
+    public void execute(final Runnable task) {
+        this.executorService.execute(task);
+    }
+    
+    public void shutdown() {
+        this.executorService.shutdownNow();
+    }
+    
+    @Override
+    public String toString() {
+        return "VirtualThreadTransport{maxWorkers=" + this.maxWorkers + '}';
+    }
+}
@@ -0,0 +1,175 @@
+package com.mojang.launcher.updater.download.assets;
+
+import com.mojang.launcher.updater.download.DownloadJob;
+import com.mojang.launcher.updater.download.Downloadable;
+import com.mojang.launcher.updater.download.MonitoringInputStream;
+import com.mojang.launcher.updater.download.TransferEngine;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class AssetBundleDownloadable extends Downloadable
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private final String bucket;
+    private final Map<String, AssetIndex.AssetObject> objects;
+    private final Map<String, String> names;
+    private final String urlBase;
+    private final File destination;
+    private int extracted;
+    private int fallbacks;
+    
+    public AssetBundleDownloadable(final Proxy proxy, final String bundleBase, final String bucket, final Map<AssetIndex.AssetObject, String> objects, final String urlBase, final File destination) throws MalformedURLException {
+        super(proxy, new URL(bundleBase + bucket + ".zip"), new File(destination, bucket + ".zip"), false);
+        this.objects = new HashMap<String, AssetIndex.AssetObject>();
+        this.names = new HashMap<String, String>();
+        this.bucket = bucket;
+        this.urlBase = urlBase;
+        this.destination = destination;
+        long size = 0L;
+        for (final Map.Entry<AssetIndex.AssetObject, String> entry : objects.entrySet()) {
+            final String hash = entry.getKey().getHash();
+            this.objects.put(hash, entry.getKey());
+            this.names.put(hash, entry.getValue());
+            size += entry.getKey().getSize();
+        }
+        this.setExpectedSize(size);
+    }
+    
+    @Override
+    public String download() throws IOException {
+        ++this.numAttempts;
+        this.extracted = 0;
+        this.fallbacks = 0;
+        final Map<String, AssetIndex.AssetObject> remaining = new HashMap<String, AssetIndex.AssetObject>();
+        for (final Map.Entry<String, AssetIndex.AssetObject> entry : this.objects.entrySet()) {
+            final File file = this.getObjectFile(entry.getKey());
+            if (!file.isFile() || file.length() != entry.getValue().getSize()) {
+                remaining.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (remaining.isEmpty()) {
+            return "Already have every asset in bundle " + this.bucket;
+        }
+        try {
+            this.extractBundle(remaining);
+        }
+        catch (IOException e) {
+            if (this.isCancelled() || this.getMonitor().getJob() == null) {
+                throw e;
+            }
+            AssetBundleDownloadable.LOGGER.warn("Couldn't download asset bundle " + this.getUrl() + ", queueing " + remaining.size() + " asset(s) individually: " + e);
+        }
+        if (remaining.isEmpty()) {
+            return "Extracted " + this.extracted + " asset(s) from bundle " + this.bucket;
+        }
+        final DownloadJob job = this.getMonitor().getJob();
+        if (job == null) {
+            throw new IOException("Asset bundle " + this.getUrl() + " is missing " + remaining.size() + " asset(s)");
+        }
+        final List<Downloadable> fallbacks = new ArrayList<Downloadable>();
+        long size = 0L;
+        for (final Map.Entry<String, AssetIndex.AssetObject> entry : remaining.entrySet()) {
+            fallbacks.add(new AssetDownloadable(this.getProxy(), this.names.get(entry.getKey()), entry.getValue(), this.urlBase, this.destination));
+            size += entry.getValue().getSize();
+        }
+        this.getMonitor().setTotal(Math.max(this.getMonitor().getCurrent(), this.getMonitor().getTotal() - size));
+        job.addFollowUpDownloadables(fallbacks);
+        this.fallbacks = fallbacks.size();
+        return "Extracted " + this.extracted + " asset(s) from bundle " + this.bucket + " and queued " + this.fallbacks + " to download individually";
+    }
+    
+    private void extractBundle(final Map<String, AssetIndex.AssetObject> remaining) throws IOException {
+        final HttpURLConnection connection = this.sendRequest(this.makeConnection(this.getUrl()));
+        final int status = connection.getResponseCode();
+        if (status / 100 != 2) {
+            this.releaseConnection(connection);
+            throw new IOException("Server responded with " + status);
+        }
+        this.getMonitor().setTotal(this.getExpectedSize());
+        final ZipInputStream inputStream = new ZipInputStream(new MonitoringInputStream(this.getInputStream(connection), this.getMonitor()));
+        try {
+            ZipEntry entry;
+            while ((entry = inputStream.getNextEntry()) != null) {
+                final String hash = entry.getName().substring(entry.getName().lastIndexOf('/') + 1).toLowerCase();
+                final AssetIndex.AssetObject object = remaining.get(hash);
+                if (object != null && !entry.isDirectory() && this.extract(inputStream, hash, object)) {
+                    remaining.remove(hash);
+                    ++this.extracted;
+                }
+            }
+        }
+        finally {
+            closeSilently(inputStream);
+        }
+    }
+    
+    private boolean extract(final ZipInputStream inputStream, final String hash, final AssetIndex.AssetObject object) throws IOException {
+        final File target = this.getObjectFile(hash);
+        final File partial = new File(target.getParentFile(), target.getName() + ".part");
+        this.ensureFileWritable(target);
+        final MessageDigest digest = TransferEngine.getThreadDigest("SHA");
+        FileOutputStream outputStream = null;
+        final long size;
+        try {
+            outputStream = new FileOutputStream(partial);
+            size = TransferEngine.transfer(inputStream, outputStream.getChannel(), digest);
+        }
+        catch (IOException e) {
+            closeSilently(outputStream);
+            FileUtils.deleteQuietly(partial);
+            throw e;
+        }
+        finally {
+            closeSilently(outputStream);
+        }
+        final String actual = TransferEngine.toHex(digest.digest());
+        if (size != object.getSize() || !actual.equalsIgnoreCase(hash)) {
+            AssetBundleDownloadable.LOGGER.warn("Asset " + hash + " in bundle " + this.bucket + " is corrupt (had " + size + " bytes with hash " + actual + ")");
+            FileUtils.deleteQuietly(partial);
+            return false;
+        }
+        if (!partial.renameTo(target)) {
+            if (target.isFile() && !target.delete()) {
+                FileUtils.deleteQuietly(partial);
+                throw new IOException("Couldn't replace " + target + " with " + partial);
+            }
+            if (!partial.renameTo(target)) {
+                throw new IOException("Couldn't move " + partial + " to " + target);
+            }
+        }
+        return true;
+    }
+    
+    private File getObjectFile(final String hash) {
+        return new File(this.destination, AssetDownloadable.createPathFromHash(hash));
+    }
+    
+    @Override
+    public String getStatus() {
+        return "Downloading asset bundle " + this.bucket;
+    }
+    
+    public int getExtracted() {
+        return this.extracted;
+    }
+    
+    public int getFallbacks() {
+        return this.fallbacks;
+    }
+}
@@ -0,0 +1,255 @@
+package com.mojang.launcher.updater.download.assets;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mojang.launcher.OperatingSystem;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class AssetDiff
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int MAX_THREADS = 8;
+    private static final ExecutorService EXECUTOR;
+    private static final Method TO_PATH;
+    private static final Method WALK_FILE_TREE;
+    private static final Class<?> FILE_VISITOR;
+    private static final Method GET_FILE_NAME;
+    private static final Method IS_REGULAR_FILE;
+    private static final Method SIZE;
+    private static final Object CONTINUE;
+    private final File objectsFolder;
+    private int buckets;
+    private int presentFiles;
+    private long time;
+    
+    public AssetDiff(final File objectsFolder) {
+        this.objectsFolder = objectsFolder;
+    }
+    
+    public Map<AssetIndex.AssetObject, String> diff(final AssetIndex index) {
+        final long start = System.nanoTime();
+        final int[] counts = new int[256];
+        for (int i = 0; i < index.getUniqueCount(); ++i) {
+            ++counts[index.getUniqueObject(i).getBucket()];
+        }
+        final int[][] buckets = new int[256][];
+        for (int bucket = 0; bucket < buckets.length; ++bucket) {
+            buckets[bucket] = new int[counts[bucket]];
+            counts[bucket] = 0;
+        }
+        for (int i = 0; i < index.getUniqueCount(); ++i) {
+            final int bucket = index.getUniqueObject(i).getBucket();
+            buckets[bucket][counts[bucket]++] = i;
+        }
+        final Map<AssetIndex.AssetObject, String> missing = new LinkedHashMap<AssetIndex.AssetObject, String>();
+        final boolean[] existingBuckets = new boolean[256];
+        final String[] bucketNames = this.objectsFolder.list();
+        if (bucketNames != null) {
+            for (final String name : bucketNames) {
+                final int bucket = AssetIndex.AssetObject.parseBucket(name);
+                if (bucket >= 0) {
+                    existingBuckets[bucket] = true;
+                }
+            }
+        }
+        final List<Future<BucketResult>> results = new ArrayList<Future<BucketResult>>();
+        for (int bucket = 0; bucket < buckets.length; ++bucket) {
+            final int[] members = buckets[bucket];
+            if (members.length == 0) {
+                continue;
+            }
+            if (!existingBuckets[bucket]) {
+                for (final int member : members) {
+                    missing.put(index.getUniqueObject(member), index.getUniquePath(member));
+                }
+                continue;
+            }
+            final File directory = new File(this.objectsFolder, AssetIndex.AssetObject.getBucketName(bucket));
+            results.add(AssetDiff.EXECUTOR.submit(new Callable<BucketResult>() {
+                @Override
+                public BucketResult call() {
+                    return scanBucket(directory, index, members);
+                }
+            }));
+        }
+        for (final Future<BucketResult> result : results) {
+            try {
+                final BucketResult bucket = result.get();
+                missing.putAll(bucket.missing);
+                this.presentFiles += bucket.present;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while comparing assets in " + this.objectsFolder, e);
+            }
+            catch (ExecutionException e) {
+                throw new RuntimeException("Couldn't compare assets in " + this.objectsFolder, e.getCause());
+            }
+        }
+        this.buckets = results.size();
+        this.time = (System.nanoTime() - start) / 1000000L;
+        return missing;
+    }
+    
+    private static BucketResult scanBucket(final File directory, final AssetIndex index, final int[] members) {
+        final BucketResult result = new BucketResult();
+        final String[] present = new String[members.length];
+        final long[] sizes = new long[members.length];
+        final Map<String, Long> listing = listFiles(directory);
+        if (listing != null) {
+            for (final Map.Entry<String, Long> entry : listing.entrySet()) {
+                final int i = findMember(index, members, present, entry.getKey());
+                if (i >= 0) {
+                    present[i] = entry.getKey();
+                    sizes[i] = entry.getValue();
+                }
+            }
+        }
+        else {
+            final String[] names = directory.list();
+            if (names != null) {
+                for (final String name : names) {
+                    final int i = findMember(index, members, present, name);
+                    if (i >= 0) {
+                        final File file = new File(directory, name);
+                        present[i] = name;
+                        sizes[i] = file.length();
+                        if (sizes[i] == 0L && !file.isFile()) {
+                            sizes[i] = -1L;
+                        }
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < members.length; ++i) {
+            final AssetIndex.AssetObject object = index.getUniqueObject(members[i]);
+            if (present[i] != null) {
+                if (sizes[i] == object.getSize()) {
+                    ++result.present;
+                    continue;
+                }
+                AssetDiff.LOGGER.debug("Asset " + index.getUniquePath(members[i]) + " has the wrong size (" + sizes[i] + " instead of " + object.getSize() + ")");
+            }
+            result.missing.put(object, index.getUniquePath(members[i]));
+        }
+        return result;
+    }
+    
+    private static int findMember(final AssetIndex index, final int[] members, final String[] present, final String name) {
+        for (int i = 0; i < members.length; ++i) {
+            if (present[i] == null && index.getUniqueObject(members[i]).hasHash(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static Map<String, Long> listFiles(final File directory) {
+        if (AssetDiff.WALK_FILE_TREE == null) {
+            return null;
+        }
+        final Map<String, Long> result = new HashMap<String, Long>();
+        final Object visitor = Proxy.newProxyInstance(AssetDiff.class.getClassLoader(), new Class[] { AssetDiff.FILE_VISITOR }, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                if (method.getDeclaringClass() != AssetDiff.FILE_VISITOR) {
+                    return method.invoke(this, args);
+                }
+                if ("visitFile".equals(method.getName()) && (Boolean)AssetDiff.IS_REGULAR_FILE.invoke(args[1])) {
+                    result.put(AssetDiff.GET_FILE_NAME.invoke(args[0]).toString(), (Long)AssetDiff.SIZE.invoke(args[1]));
+                }
+                return AssetDiff.CONTINUE;
+            }
+        });
+        try {
+            AssetDiff.WALK_FILE_TREE.invoke(null, AssetDiff.TO_PATH.invoke(directory), Collections.emptySet(), 1, visitor);
+            return result;
+        }
+        catch (Exception e) {
+            AssetDiff.LOGGER.debug("Couldn't walk " + directory + ", listing it instead (" + e + ")");
+            return null;
+        }
+    }
+    
+    public int getBuckets() {
+        return this.buckets;
+    }
+    
+    public int getPresentFiles() {
+        return this.presentFiles;
+    }
+    
+    public long getTime() {
+        return this.time;
+    }
+    
+    @Override
+    public String toString() {
+        return "AssetDiff{objectsFolder=" + this.objectsFolder + ", buckets=" + this.buckets + ", presentFiles=" + this.presentFiles + ", time=" + this.time + "ms}";
+    }
+    
+    private static class BucketResult
+    {
+        private final Map<AssetIndex.AssetObject, String> missing;
+        private int present;
+        
+        public BucketResult() {
+            this.missing = new LinkedHashMap<AssetIndex.AssetObject, String>();
+        }
+    }
+    
+    static {
+        EXECUTOR = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 10L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Asset Diff %d").build());
+        ((ThreadPoolExecutor)AssetDiff.EXECUTOR).allowCoreThreadTimeOut(true);
+        Method toPath = null;
+        Method walkFileTree = null;
+        Class<?> fileVisitor = null;
+        Method getFileName = null;
+        Method isRegularFile = null;
+        Method size = null;
+        Object resultContinue = null;
+        if (OperatingSystem.getCurrentPlatform() == OperatingSystem.WINDOWS) {
+            try {
+                final Class<?> pathClass = Class.forName("java.nio.file.Path");
+                final Class<?> filesClass = Class.forName("java.nio.file.Files");
+                final Class<?> attributesClass = Class.forName("java.nio.file.attribute.BasicFileAttributes");
+                fileVisitor = Class.forName("java.nio.file.FileVisitor");
+                toPath = File.class.getMethod("toPath");
+                getFileName = pathClass.getMethod("getFileName");
+                isRegularFile = attributesClass.getMethod("isRegularFile");
+                size = attributesClass.getMethod("size");
+                resultContinue = Class.forName("java.nio.file.FileVisitResult").getField("CONTINUE").get(null);
+                walkFileTree = filesClass.getMethod("walkFileTree", pathClass, Set.class, Integer.TYPE, fileVisitor);
+            }
+            catch (Exception e) {
+                AssetDiff.LOGGER.debug("Bulk file attributes are not available on this runtime (" + e + ")");
+            }
+        }
+        TO_PATH = toPath;
+        WALK_FILE_TREE = walkFileTree;
+        FILE_VISITOR = fileVisitor;
+        GET_FILE_NAME = getFileName;
+        IS_REGULAR_FILE = isRegularFile;
+        SIZE = size;
+        CONTINUE = resultContinue;
+    }
+}
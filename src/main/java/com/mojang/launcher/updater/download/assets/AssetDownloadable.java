@@ -2,8 +2,8 @@ package com.mojang.launcher.updater.download.assets;
 
 import com.mojang.launcher.updater.download.Downloadable;
 import com.mojang.launcher.updater.download.MonitoringInputStream;
+import com.mojang.launcher.updater.download.TransferEngine;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -12,6 +12,8 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URL;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.zip.GZIPInputStream;
 
 public class AssetDownloadable extends Downloadable
@@ -45,9 +47,6 @@ public class AssetDownloadable extends Downloadable
         final URL remoteAsset = this.getUrl();
         final URL remoteCompressed = this.asset.hasCompressedAlternative() ? new URL(this.urlBase + createPathFromHash(this.asset.getCompressedHash())) : null;
         this.ensureFileWritable(localAsset);
-        if (localCompressed != null) {
-            this.ensureFileWritable(localCompressed);
-        }
         if (localAsset.isFile()) {
             if (FileUtils.sizeOf(localAsset) == this.asset.getSize()) {
                 return "Have local file and it's the same size; assuming it's okay!";
@@ -57,7 +56,7 @@ public class AssetDownloadable extends Downloadable
             this.status = Status.DOWNLOADING;
         }
         if (localCompressed != null && localCompressed.isFile()) {
-            final String localCompressedHash = Downloadable.getDigest(localCompressed, "SHA", 40);
+            final String localCompressedHash = TransferEngine.getDigest(localCompressed, "SHA");
             if (localCompressedHash.equalsIgnoreCase(this.asset.getCompressedHash())) {
                 return this.decompressAsset(localAsset, localCompressed);
             }
@@ -65,31 +64,25 @@ public class AssetDownloadable extends Downloadable
             FileUtils.deleteQuietly(localCompressed);
         }
         if (remoteCompressed != null && localCompressed != null) {
-            final HttpURLConnection connection = this.makeConnection(remoteCompressed);
+            final HttpURLConnection connection = this.sendRequest(this.makeConnection(remoteCompressed));
             final int status = connection.getResponseCode();
             if (status / 100 != 2) {
+                this.releaseConnection(connection);
                 throw new RuntimeException("Server responded with " + status);
             }
             this.updateExpectedSize(connection);
-            final InputStream inputStream = new MonitoringInputStream(connection.getInputStream(), this.getMonitor());
-            final FileOutputStream outputStream = new FileOutputStream(localCompressed);
-            final String hash = Downloadable.copyAndDigest(inputStream, outputStream, "SHA", 40);
-            if (hash.equalsIgnoreCase(this.asset.getCompressedHash())) {
-                return this.decompressAsset(localAsset, localCompressed);
-            }
-            FileUtils.deleteQuietly(localCompressed);
-            throw new RuntimeException(String.format("Hash did not match downloaded compressed asset (Expected %s, downloaded %s)", this.asset.getCompressedHash(), hash));
+            return this.inflateAsset(new MonitoringInputStream(this.getInputStream(connection), this.getMonitor()));
         }
         else {
-            final HttpURLConnection connection = this.makeConnection(remoteAsset);
+            final HttpURLConnection connection = this.sendRequest(this.makeConnection(remoteAsset));
             final int status = connection.getResponseCode();
             if (status / 100 != 2) {
+                this.releaseConnection(connection);
                 throw new RuntimeException("Server responded with " + status);
             }
             this.updateExpectedSize(connection);
-            final InputStream inputStream = new MonitoringInputStream(connection.getInputStream(), this.getMonitor());
-            final FileOutputStream outputStream = new FileOutputStream(localAsset);
-            final String hash = Downloadable.copyAndDigest(inputStream, outputStream, "SHA", 40);
+            final InputStream inputStream = new MonitoringInputStream(this.getInputStream(connection), this.getMonitor());
+            final String hash = TransferEngine.copyAndDigest(inputStream, localAsset, "SHA");
             if (hash.equalsIgnoreCase(this.asset.getHash())) {
                 return "Downloaded asset and hash matched successfully";
             }
@@ -103,18 +96,45 @@ public class AssetDownloadable extends Downloadable
         return this.status.name + " " + this.name;
     }
     
-    protected String decompressAsset(final File localAsset, final File localCompressed) throws IOException {
-        this.status = Status.EXTRACTING;
-        final OutputStream outputStream = FileUtils.openOutputStream(localAsset);
-        final InputStream inputStream = new GZIPInputStream(FileUtils.openInputStream(localCompressed));
-        String hash;
+    private String inflateAsset(final InputStream inputStream) throws IOException {
+        final MessageDigest compressedDigest = TransferEngine.createDigest("SHA");
+        final MessageDigest digest = TransferEngine.createDigest("SHA");
+        final DigestInputStream compressedStream = new DigestInputStream(inputStream, compressedDigest);
+        final File partial = this.getPartialTarget();
+        FileOutputStream outputStream = null;
         try {
-            hash = Downloadable.copyAndDigest(inputStream, outputStream, "SHA", 40);
+            outputStream = new FileOutputStream(partial);
+            TransferEngine.transfer(new GZIPInputStream(compressedStream, 65536), outputStream.getChannel(), digest);
+            final byte[] buffer = new byte[4096];
+            while (compressedStream.read(buffer) >= 0) {}
+        }
+        catch (IOException e) {
+            closeSilently(outputStream);
+            this.discardPartial();
+            throw e;
         }
         finally {
-            IOUtils.closeQuietly(outputStream);
-            IOUtils.closeQuietly(inputStream);
+            closeSilently(compressedStream);
+            closeSilently(outputStream);
+        }
+        final String compressedHash = TransferEngine.toHex(compressedDigest.digest());
+        if (!compressedHash.equalsIgnoreCase(this.asset.getCompressedHash())) {
+            this.discardPartial();
+            throw new RuntimeException(String.format("Hash did not match downloaded compressed asset (Expected %s, downloaded %s)", this.asset.getCompressedHash(), compressedHash));
         }
+        final String hash = TransferEngine.toHex(digest.digest());
+        if (!hash.equalsIgnoreCase(this.asset.getHash())) {
+            this.discardPartial();
+            throw new RuntimeException("Downloaded compressed asset but unpacked hash did not match (expected " + this.asset.getHash() + " but had " + hash + ")");
+        }
+        this.commitPartial();
+        return "Downloaded compressed asset, unpacked it while downloading and both hashes matched";
+    }
+    
+    protected String decompressAsset(final File localAsset, final File localCompressed) throws IOException {
+        this.status = Status.EXTRACTING;
+        final InputStream inputStream = new GZIPInputStream(FileUtils.openInputStream(localCompressed));
+        final String hash = TransferEngine.copyAndDigest(inputStream, localAsset, "SHA");
         this.status = Status.DOWNLOADING;
         if (hash.equalsIgnoreCase(this.asset.getHash())) {
             return "Had local compressed asset, unpacked successfully and hash matched";
@@ -122,7 +142,7 @@ public class AssetDownloadable extends Downloadable
         FileUtils.deleteQuietly(localAsset);
         throw new RuntimeException("Had local compressed asset but unpacked hash did not match (expected " + this.asset.getHash() + " but had " + hash + ")");
     }
-
+    
     private enum Status
     {
         DOWNLOADING("Downloading"), 
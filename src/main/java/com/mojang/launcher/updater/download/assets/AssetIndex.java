@@ -8,21 +8,89 @@ import java.util.Map;
 public class AssetIndex
 {
     public static final String DEFAULT_ASSET_NAME = "legacy";
-    private Map<String, AssetObject> objects;
-    private boolean virtual;
+    private final String[] directories;
+    private final int[] pathDirectories;
+    private final String[] pathNames;
+    private final AssetObject[] pathObjects;
+    private final AssetObject[] uniqueObjects;
+    private final int[] uniquePaths;
+    private final boolean virtual;
     
-    public AssetIndex() {
-        this.objects = new LinkedHashMap<String, AssetObject>();
+    AssetIndex(final String[] directories, final int[] pathDirectories, final String[] pathNames, final AssetObject[] pathObjects, final AssetObject[] uniqueObjects, final int[] uniquePaths, final boolean virtual) {
+        this.directories = directories;
+        this.pathDirectories = pathDirectories;
+        this.pathNames = pathNames;
+        this.pathObjects = pathObjects;
+        this.uniqueObjects = uniqueObjects;
+        this.uniquePaths = uniquePaths;
+        this.virtual = virtual;
+    }
+    
+    public int size() {
+        return this.pathObjects.length;
+    }
+    
+    public String getPath(final int index) {
+        final String directory = this.directories[this.pathDirectories[index]];
+        return directory.isEmpty() ? this.pathNames[index] : (directory + "/" + this.pathNames[index]);
+    }
+    
+    public AssetObject getObject(final int index) {
+        return this.pathObjects[index];
+    }
+    
+    public AssetObject find(final String path) {
+        final int slash = path.lastIndexOf('/');
+        final String directory = (slash < 0) ? "" : path.substring(0, slash);
+        final String name = path.substring(slash + 1);
+        for (int i = 0; i < this.pathNames.length; ++i) {
+            if (this.pathNames[i].equals(name) && this.directories[this.pathDirectories[i]].equals(directory)) {
+                return this.pathObjects[i];
+            }
+        }
+        return null;
+    }
+    
+    public int getDirectoryCount() {
+        return this.directories.length;
+    }
+    
+    public String getDirectory(final int directory) {
+        return this.directories[directory];
+    }
+    
+    public int getDirectoryId(final int index) {
+        return this.pathDirectories[index];
+    }
+    
+    public String getName(final int index) {
+        return this.pathNames[index];
+    }
+    
+    public int getUniqueCount() {
+        return this.uniqueObjects.length;
+    }
+    
+    public AssetObject getUniqueObject(final int index) {
+        return this.uniqueObjects[index];
+    }
+    
+    public String getUniquePath(final int index) {
+        return this.getPath(this.uniquePaths[index]);
     }
     
     public Map<String, AssetObject> getFileMap() {
-        return this.objects;
+        final Map<String, AssetObject> result = new LinkedHashMap<String, AssetObject>(this.pathObjects.length * 4 / 3 + 1);
+        for (int i = 0; i < this.pathObjects.length; ++i) {
+            result.put(this.getPath(i), this.pathObjects[i]);
+        }
+        return result;
     }
     
     public Map<AssetObject, String> getUniqueObjects() {
-        final Map<AssetObject, String> result = Maps.newHashMap();
-        for (final Map.Entry<String, AssetObject> objectEntry : this.objects.entrySet()) {
-            result.put(objectEntry.getValue(), objectEntry.getKey());
+        final Map<AssetObject, String> result = Maps.newHashMapWithExpectedSize(this.uniqueObjects.length);
+        for (int i = 0; i < this.uniqueObjects.length; ++i) {
+            result.put(this.uniqueObjects[i], this.getPath(this.uniquePaths[i]));
         }
         return result;
     }
@@ -31,16 +99,95 @@ public class AssetIndex
         return this.virtual;
     }
     
+    @Override
+    public String toString() {
+        return "AssetIndex{paths=" + this.pathObjects.length + ", unique=" + this.uniqueObjects.length + ", directories=" + this.directories.length + ", virtual=" + this.virtual + '}';
+    }
+    
     public static class AssetObject
     {
+        private static final String[] BUCKET_NAMES;
+        private final long hashHigh;
+        private final long hashMiddle;
+        private final int hashLow;
+        private final long size;
+        private final boolean reconstruct;
+        private final String compressedHash;
+        private final long compressedSize;
         private String hash;
-        private long size;
-        private boolean reconstruct;
-        private String compressedHash;
-        private long compressedSize;
+        
+        public AssetObject(final String hash, final long size, final boolean reconstruct, final String compressedHash, final long compressedSize) {
+            if (hash == null || hash.length() != 40) {
+                throw new IllegalArgumentException("Invalid asset hash " + hash);
+            }
+            this.hashHigh = parseHex(hash, 0, 16);
+            this.hashMiddle = parseHex(hash, 16, 32);
+            this.hashLow = (int)parseHex(hash, 32, 40);
+            this.size = size;
+            this.reconstruct = reconstruct;
+            this.compressedHash = compressedHash;
+            this.compressedSize = compressedSize;
+        }
+        
+        private static long parseHex(final String hash, final int start, final int end) {
+            long result = 0L;
+            for (int i = start; i < end; ++i) {
+                final int digit = Character.digit(hash.charAt(i), 16);
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Invalid asset hash " + hash);
+                }
+                result = (result << 4 | digit);
+            }
+            return result;
+        }
+        
+        private static void appendHex(final char[] chars, final int offset, final long value, final int digits) {
+            for (int i = 0; i < digits; ++i) {
+                chars[offset + i] = Character.forDigit((int)(value >>> (digits - 1 - i) * 4 & 0xFL), 16);
+            }
+        }
+        
+        public static String getBucketName(final int bucket) {
+            return AssetObject.BUCKET_NAMES[bucket];
+        }
+        
+        public static int parseBucket(final String name) {
+            if (name.length() != 2) {
+                return -1;
+            }
+            final int high = Character.digit(name.charAt(0), 16);
+            final int low = Character.digit(name.charAt(1), 16);
+            return (high < 0 || low < 0) ? -1 : (high << 4 | low);
+        }
         
         public String getHash() {
-            return this.hash;
+            String hash = this.hash;
+            if (hash == null) {
+                final char[] chars = new char[40];
+                appendHex(chars, 0, this.hashHigh, 16);
+                appendHex(chars, 16, this.hashMiddle, 16);
+                appendHex(chars, 32, this.hashLow, 8);
+                hash = new String(chars);
+                this.hash = hash;
+            }
+            return hash;
+        }
+        
+        public int getBucket() {
+            return (int)(this.hashHigh >>> 56);
+        }
+        
+        public boolean hasHash(final String name) {
+            if (name.length() != 40) {
+                return false;
+            }
+            for (int i = 0; i < 40; ++i) {
+                final long value = (i < 16) ? (this.hashHigh >>> (15 - i) * 4) : ((i < 32) ? (this.hashMiddle >>> (31 - i) * 4) : (this.hashLow >>> (39 - i) * 4));
+                if (Character.digit(name.charAt(i), 16) != (int)(value & 0xFL)) {
+                    return false;
+                }
+            }
+            return true;
         }
         
         public long getSize() {
@@ -72,45 +219,39 @@ public class AssetIndex
                 return false;
             }
             final AssetObject that = (AssetObject)o;
-            if (this.compressedSize != that.compressedSize) {
-                return false;
-            }
-            if (this.reconstruct != that.reconstruct) {
+            if (this.hashHigh != that.hashHigh || this.hashMiddle != that.hashMiddle || this.hashLow != that.hashLow) {
                 return false;
             }
-            if (this.size != that.size) {
+            if (this.size != that.size || this.reconstruct != that.reconstruct || this.compressedSize != that.compressedSize) {
                 return false;
             }
-            Label_0103: {
-                if (this.compressedHash != null) {
-                    if (this.compressedHash.equals(that.compressedHash)) {
-                        break Label_0103;
-                    }
-                }
-                else if (that.compressedHash == null) {
-                    break Label_0103;
-                }
-                return false;
-            }
-            if (this.hash != null) {
-                if (this.hash.equals(that.hash)) {
-                    return true;
-                }
-            }
-            else if (that.hash == null) {
-                return true;
-            }
-            return false;
+            return (this.compressedHash != null) ? this.compressedHash.equals(that.compressedHash) : (that.compressedHash == null);
         }
         
         @Override
         public int hashCode() {
-            int result = (this.hash != null) ? this.hash.hashCode() : 0;
+            int result = (int)(this.hashHigh ^ this.hashHigh >>> 32);
+            result = 31 * result + (int)(this.hashMiddle ^ this.hashMiddle >>> 32);
+            result = 31 * result + this.hashLow;
             result = 31 * result + (int)(this.size ^ this.size >>> 32);
             result = 31 * result + (this.reconstruct ? 1 : 0);
             result = 31 * result + ((this.compressedHash != null) ? this.compressedHash.hashCode() : 0);
             result = 31 * result + (int)(this.compressedSize ^ this.compressedSize >>> 32);
             return result;
         }
+        
+        @Override
+        public String toString() {
+            return "AssetObject{hash=" + this.getHash() + ", size=" + this.size + '}';
+        }
+        
+        static {
+            BUCKET_NAMES = new String[256];
+            final char[] chars = new char[2];
+            for (int i = 0; i < AssetObject.BUCKET_NAMES.length; ++i) {
+                appendHex(chars, 0, i, 2);
+                AssetObject.BUCKET_NAMES[i] = new String(chars);
+            }
+        }
     }
 }
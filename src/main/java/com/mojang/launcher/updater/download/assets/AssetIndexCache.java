@@ -0,0 +1,89 @@
+package com.mojang.launcher.updater.download.assets;
+
+import org.apache.commons.io.Charsets;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AssetIndexCache
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Map<String, CachedIndex> CACHE = new HashMap<String, CachedIndex>();
+    private static long hits;
+    private static long misses;
+    
+    public static AssetIndex get(final File file) throws IOException {
+        final String key = file.getAbsolutePath();
+        synchronized (AssetIndexCache.CACHE) {
+            final CachedIndex cached = AssetIndexCache.CACHE.get(key);
+            final AssetIndex index = (cached == null || !cached.matches(file)) ? null : cached.index.get();
+            if (index != null) {
+                ++AssetIndexCache.hits;
+                return index;
+            }
+            ++AssetIndexCache.misses;
+        }
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        final long start = System.nanoTime();
+        Reader reader = null;
+        final AssetIndex index;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8));
+            index = AssetIndexReader.read(reader);
+        }
+        finally {
+            IOUtils.closeQuietly(reader);
+        }
+        AssetIndexCache.LOGGER.debug("Parsed asset index " + file + " in " + (System.nanoTime() - start) / 1000000L + " ms: " + index);
+        synchronized (AssetIndexCache.CACHE) {
+            AssetIndexCache.CACHE.put(key, new CachedIndex(index, length, lastModified));
+        }
+        return index;
+    }
+    
+    public static void invalidate(final File file) {
+        synchronized (AssetIndexCache.CACHE) {
+            AssetIndexCache.CACHE.remove(file.getAbsolutePath());
+        }
+    }
+    
+    public static long getHits() {
+        synchronized (AssetIndexCache.CACHE) {
+            return AssetIndexCache.hits;
+        }
+    }
+    
+    public static long getMisses() {
+        synchronized (AssetIndexCache.CACHE) {
+            return AssetIndexCache.misses;
+        }
+    }
+    
+    private static class CachedIndex
+    {
+        private final SoftReference<AssetIndex> index;
+        private final long length;
+        private final long lastModified;
+        
+        public CachedIndex(final AssetIndex index, final long length, final long lastModified) {
+            this.index = new SoftReference<AssetIndex>(index);
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+        
+        public boolean matches(final File file) {
+            return file.length() == this.length && file.lastModified() == this.lastModified;
+        }
+    }
+}
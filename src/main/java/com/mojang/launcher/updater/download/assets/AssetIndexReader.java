@@ -0,0 +1,157 @@
+package com.mojang.launcher.updater.download.assets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AssetIndexReader
+{
+    private final List<String> directories;
+    private final Map<String, Integer> directoryIds;
+    private final Map<AssetIndex.AssetObject, Integer> uniqueIds;
+    private final List<AssetIndex.AssetObject> uniqueObjects;
+    private int[] uniquePaths;
+    private int[] pathDirectories;
+    private String[] pathNames;
+    private AssetIndex.AssetObject[] pathObjects;
+    private int size;
+    private boolean virtual;
+    
+    private AssetIndexReader() {
+        this.directories = new ArrayList<String>();
+        this.directoryIds = new HashMap<String, Integer>();
+        this.uniqueIds = new HashMap<AssetIndex.AssetObject, Integer>();
+        this.uniqueObjects = new ArrayList<AssetIndex.AssetObject>();
+        this.uniquePaths = new int[256];
+        this.pathDirectories = new int[256];
+        this.pathNames = new String[256];
+        this.pathObjects = new AssetIndex.AssetObject[256];
+    }
+    
+    public static AssetIndex read(final Reader reader) throws IOException {
+        final AssetIndexReader indexReader = new AssetIndexReader();
+        final JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            final String name = jsonReader.nextName();
+            if ("objects".equals(name)) {
+                indexReader.readObjects(jsonReader);
+            }
+            else if ("virtual".equals(name)) {
+                indexReader.virtual = jsonReader.nextBoolean();
+            }
+            else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return indexReader.build();
+    }
+    
+    private void readObjects(final JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String path = reader.nextName();
+            this.add(path, readObject(path, reader));
+        }
+        reader.endObject();
+    }
+    
+    private static AssetIndex.AssetObject readObject(final String path, final JsonReader reader) throws IOException {
+        String hash = null;
+        long size = 0L;
+        boolean reconstruct = false;
+        String compressedHash = null;
+        long compressedSize = 0L;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            }
+            else if ("hash".equals(name)) {
+                hash = reader.nextString();
+            }
+            else if ("size".equals(name)) {
+                size = reader.nextLong();
+            }
+            else if ("reconstruct".equals(name)) {
+                reconstruct = reader.nextBoolean();
+            }
+            else if ("compressedHash".equals(name)) {
+                compressedHash = reader.nextString();
+            }
+            else if ("compressedSize".equals(name)) {
+                compressedSize = reader.nextLong();
+            }
+            else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        try {
+            return new AssetIndex.AssetObject(hash, size, reconstruct, compressedHash, compressedSize);
+        }
+        catch (IllegalArgumentException e) {
+            throw new JsonParseException("Asset " + path + " has an invalid hash", e);
+        }
+    }
+    
+    private void add(final String path, final AssetIndex.AssetObject object) {
+        if (this.size == this.pathObjects.length) {
+            final int capacity = this.size * 2;
+            final int[] pathDirectories = new int[capacity];
+            final String[] pathNames = new String[capacity];
+            final AssetIndex.AssetObject[] pathObjects = new AssetIndex.AssetObject[capacity];
+            System.arraycopy(this.pathDirectories, 0, pathDirectories, 0, this.size);
+            System.arraycopy(this.pathNames, 0, pathNames, 0, this.size);
+            System.arraycopy(this.pathObjects, 0, pathObjects, 0, this.size);
+            this.pathDirectories = pathDirectories;
+            this.pathNames = pathNames;
+            this.pathObjects = pathObjects;
+        }
+        final int slash = path.lastIndexOf('/');
+        final String directory = (slash < 0) ? "" : path.substring(0, slash);
+        Integer directoryId = this.directoryIds.get(directory);
+        if (directoryId == null) {
+            directoryId = this.directories.size();
+            this.directories.add(directory);
+            this.directoryIds.put(directory, directoryId);
+        }
+        Integer uniqueId = this.uniqueIds.get(object);
+        if (uniqueId == null) {
+            uniqueId = this.uniqueObjects.size();
+            this.uniqueObjects.add(object);
+            this.uniqueIds.put(object, uniqueId);
+            if (uniqueId == this.uniquePaths.length) {
+                final int[] uniquePaths = new int[uniqueId * 2];
+                System.arraycopy(this.uniquePaths, 0, uniquePaths, 0, uniqueId);
+                this.uniquePaths = uniquePaths;
+            }
+        }
+        this.uniquePaths[uniqueId] = this.size;
+        this.pathDirectories[this.size] = directoryId;
+        this.pathNames[this.size] = path.substring(slash + 1);
+        this.pathObjects[this.size] = this.uniqueObjects.get(uniqueId);
+        ++this.size;
+    }
+    
+    private AssetIndex build() {
+        final int[] pathDirectories = new int[this.size];
+        final String[] pathNames = new String[this.size];
+        final AssetIndex.AssetObject[] pathObjects = new AssetIndex.AssetObject[this.size];
+        final int[] uniquePaths = new int[this.uniqueObjects.size()];
+        System.arraycopy(this.pathDirectories, 0, pathDirectories, 0, this.size);
+        System.arraycopy(this.pathNames, 0, pathNames, 0, this.size);
+        System.arraycopy(this.pathObjects, 0, pathObjects, 0, this.size);
+        System.arraycopy(this.uniquePaths, 0, uniquePaths, 0, uniquePaths.length);
+        return new AssetIndex(this.directories.toArray(new String[this.directories.size()]), pathDirectories, pathNames, pathObjects, this.uniqueObjects.toArray(new AssetIndex.AssetObject[this.uniqueObjects.size()]), uniquePaths, this.virtual);
+    }
+}
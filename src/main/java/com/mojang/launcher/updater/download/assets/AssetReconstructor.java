@@ -0,0 +1,269 @@
+package com.mojang.launcher.updater.download.assets;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AssetReconstructor
+{
+    public static final String MANIFEST_NAME = ".reconstructed";
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Method TO_PATH;
+    private static final Method CREATE_LINK;
+    private static final Method CREATE_SYMBOLIC_LINK;
+    private static final Object NO_ATTRIBUTES;
+    private static final Gson GSON = new Gson();
+    private final File objectsFolder;
+    private final File virtualRoot;
+    private final AtomicInteger linked;
+    private final AtomicInteger symlinked;
+    private final AtomicInteger copied;
+    private final AtomicInteger skipped;
+    private volatile boolean hardLinksFailed;
+    private volatile boolean symlinksFailed;
+    
+    public AssetReconstructor(final File objectsFolder, final File virtualRoot) {
+        this.linked = new AtomicInteger();
+        this.symlinked = new AtomicInteger();
+        this.copied = new AtomicInteger();
+        this.skipped = new AtomicInteger();
+        this.objectsFolder = objectsFolder;
+        this.virtualRoot = virtualRoot;
+        this.hardLinksFailed = (AssetReconstructor.CREATE_LINK == null);
+        this.symlinksFailed = (AssetReconstructor.CREATE_SYMBOLIC_LINK == null);
+    }
+    
+    public boolean isUpToDate(final String indexHash) {
+        final File file = new File(this.virtualRoot, MANIFEST_NAME);
+        if (indexHash == null || !file.isFile()) {
+            return false;
+        }
+        try {
+            final Manifest manifest = AssetReconstructor.GSON.fromJson(FileUtils.readFileToString(file), Manifest.class);
+            return manifest != null && manifest.entries > 0 && indexHash.equalsIgnoreCase(manifest.indexHash);
+        }
+        catch (IOException e) {
+            AssetReconstructor.LOGGER.warn("Couldn't read reconstruction manifest " + file, e);
+        }
+        catch (JsonParseException e) {
+            AssetReconstructor.LOGGER.warn("Reconstruction manifest " + file + " is corrupt, ignoring it", e);
+        }
+        return false;
+    }
+    
+    public void reconstruct(final AssetIndex index, final String indexHash) throws IOException {
+        final File file = new File(this.virtualRoot, MANIFEST_NAME);
+        FileUtils.deleteQuietly(file);
+        this.reconstruct(index);
+        if (indexHash == null) {
+            return;
+        }
+        final File partial = new File(this.virtualRoot, MANIFEST_NAME + ".part");
+        FileUtils.writeStringToFile(partial, AssetReconstructor.GSON.toJson(new Manifest(indexHash, index.size())));
+        if (!partial.renameTo(file)) {
+            FileUtils.deleteQuietly(partial);
+            AssetReconstructor.LOGGER.warn("Couldn't write reconstruction manifest " + file);
+        }
+    }
+    
+    public void reconstruct(final AssetIndex index) throws IOException {
+        final long start = System.nanoTime();
+        final int[] counts = new int[index.getDirectoryCount()];
+        for (int i = 0; i < index.size(); ++i) {
+            ++counts[index.getDirectoryId(i)];
+        }
+        final int[][] entries = new int[counts.length][];
+        for (int i = 0; i < counts.length; ++i) {
+            entries[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < index.size(); ++i) {
+            final int directory = index.getDirectoryId(i);
+            entries[directory][counts[directory]++] = i;
+        }
+        final int threads = Math.max(1, Math.min(counts.length, Runtime.getRuntime().availableProcessors()));
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Asset Reconstruction %d").build());
+        final List<Future<Void>> results = new ArrayList<Future<Void>>();
+        for (int i = 0; i < entries.length; ++i) {
+            final String directory = index.getDirectory(i);
+            final int[] directoryEntries = entries[i];
+            if (directoryEntries.length == 0) {
+                continue;
+            }
+            results.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    AssetReconstructor.this.reconstruct(index, directory, directoryEntries);
+                    return null;
+                }
+            }));
+        }
+        executorService.shutdown();
+        try {
+            for (final Future<Void> result : results) {
+                result.get();
+            }
+        }
+        catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reconstructing " + this.virtualRoot);
+        }
+        catch (ExecutionException e) {
+            executorService.shutdownNow();
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            throw new RuntimeException("Couldn't reconstruct " + this.virtualRoot, e.getCause());
+        }
+        AssetReconstructor.LOGGER.info("Reconstructed " + index.size() + " asset(s) in " + (System.nanoTime() - start) / 1000000L + " ms: " + this.linked + " hard linked, " + this.symlinked + " symlinked, " + this.copied + " copied, " + this.skipped + " already present");
+    }
+    
+    private void reconstruct(final AssetIndex index, final String directory, final int[] entries) throws IOException {
+        final File parent = directory.isEmpty() ? this.virtualRoot : new File(this.virtualRoot, directory);
+        final String[] names = parent.list();
+        final Set<String> present = (names == null) ? new HashSet<String>() : new HashSet<String>(Arrays.asList(names));
+        for (final int entry : entries) {
+            final String name = index.getName(entry);
+            final AssetIndex.AssetObject object = index.getObject(entry);
+            final File target = new File(parent, name);
+            if (present.contains(name)) {
+                if (target.isFile() && target.length() == object.getSize()) {
+                    this.skipped.incrementAndGet();
+                    continue;
+                }
+                AssetReconstructor.LOGGER.debug("Replacing stale asset " + target);
+                target.delete();
+            }
+            this.reconstruct(target, index.getPath(entry), object);
+        }
+    }
+    
+    private void reconstruct(final File target, final String path, final AssetIndex.AssetObject object) throws IOException {
+        final String hash = object.getHash();
+        final File original = new File(new File(this.objectsFolder, hash.substring(0, 2)), hash);
+        if (!original.isFile()) {
+            throw new IOException("Asset object " + original + " for " + path + " does not exist");
+        }
+        final File parent = target.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Couldn't create directory " + parent);
+        }
+        if (!this.hardLinksFailed) {
+            if (link(AssetReconstructor.CREATE_LINK, target, original)) {
+                this.linked.incrementAndGet();
+                return;
+            }
+            if (!this.hardLinksFailed) {
+                this.hardLinksFailed = true;
+                AssetReconstructor.LOGGER.info("Couldn't hard link assets into " + this.virtualRoot + ", trying symbolic links");
+            }
+        }
+        if (!this.symlinksFailed) {
+            if (link(AssetReconstructor.CREATE_SYMBOLIC_LINK, target, original.getAbsoluteFile())) {
+                this.symlinked.incrementAndGet();
+                return;
+            }
+            if (!this.symlinksFailed) {
+                this.symlinksFailed = true;
+                AssetReconstructor.LOGGER.info("Couldn't symlink assets into " + this.virtualRoot + ", copying them instead");
+            }
+        }
+        FileUtils.copyFile(original, target, false);
+        this.copied.incrementAndGet();
+    }
+    
+    private static boolean link(final Method method, final File link, final File existing) {
+        try {
+            if (method == AssetReconstructor.CREATE_LINK) {
+                method.invoke(null, AssetReconstructor.TO_PATH.invoke(link), AssetReconstructor.TO_PATH.invoke(existing));
+            }
+            else {
+                method.invoke(null, AssetReconstructor.TO_PATH.invoke(link), AssetReconstructor.TO_PATH.invoke(existing), AssetReconstructor.NO_ATTRIBUTES);
+            }
+            return true;
+        }
+        catch (InvocationTargetException e) {
+            AssetReconstructor.LOGGER.debug("Couldn't link " + link + " to " + existing + ": " + e.getCause());
+            return false;
+        }
+        catch (IllegalAccessException e) {
+            return false;
+        }
+    }
+    
+    public int getLinked() {
+        return this.linked.get();
+    }
+    
+    public int getSymlinked() {
+        return this.symlinked.get();
+    }
+    
+    public int getCopied() {
+        return this.copied.get();
+    }
+    
+    public int getSkipped() {
+        return this.skipped.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "AssetReconstructor{virtualRoot=" + this.virtualRoot + ", linked=" + this.linked + ", symlinked=" + this.symlinked + ", copied=" + this.copied + ", skipped=" + this.skipped + '}';
+    }
+    
+    private static class Manifest
+    {
+        private String indexHash;
+        private int entries;
+        
+        public Manifest(final String indexHash, final int entries) {
+            this.indexHash = indexHash;
+            this.entries = entries;
+        }
+    }
+    
+    static {
+        Method toPath = null;
+        Method createLink = null;
+        Method createSymbolicLink = null;
+        Object noAttributes = null;
+        try {
+            final Class<?> pathClass = Class.forName("java.nio.file.Path");
+            final Class<?> filesClass = Class.forName("java.nio.file.Files");
+            final Class<?> attributeClass = Class.forName("java.nio.file.attribute.FileAttribute");
+            toPath = File.class.getMethod("toPath");
+            createLink = filesClass.getMethod("createLink", pathClass, pathClass);
+            noAttributes = Array.newInstance(attributeClass, 0);
+            createSymbolicLink = filesClass.getMethod("createSymbolicLink", pathClass, pathClass, noAttributes.getClass());
+        }
+        catch (Exception e) {
+            AssetReconstructor.LOGGER.debug("File links are not available on this runtime (" + e + ")");
+        }
+        TO_PATH = toPath;
+        CREATE_LINK = createLink;
+        CREATE_SYMBOLIC_LINK = createSymbolicLink;
+        NO_ATTRIBUTES = noAttributes;
+    }
+}
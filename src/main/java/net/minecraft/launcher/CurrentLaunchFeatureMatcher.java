@@ -20,8 +20,8 @@ public class CurrentLaunchFeatureMatcher implements CompatibilityRule.FeatureMat
     @Override
     public boolean hasFeature(final String name, final Object value) {
         if (name.equals("is_demo_user")) {
-            return Objects.equal(this.auth.getSelectedProfile() == null, value);
+            return this.auth != null && Objects.equal(this.auth.getSelectedProfile() == null, value);
         }
-        return name.equals("has_custom_resolution") && Objects.equal(this.profile.getResolution() != null, value);
+        return name.equals("has_custom_resolution") && this.profile != null && Objects.equal(this.profile.getResolution() != null, value);
     }
 }
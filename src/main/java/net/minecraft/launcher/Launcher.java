@@ -10,7 +10,9 @@ import com.mojang.authlib.exceptions.InvalidCredentialsException;
 import com.mojang.launcher.OperatingSystem;
 import com.mojang.launcher.updater.DateTypeAdapter;
 import com.mojang.launcher.updater.VersionSyncInfo;
+import com.mojang.launcher.updater.download.Downloadable;
 import com.mojang.launcher.updater.download.assets.AssetIndex;
+import com.mojang.launcher.updater.download.assets.AssetIndexCache;
 import com.mojang.launcher.versions.CompleteVersion;
 import com.mojang.launcher.versions.Version;
 import com.mojang.util.UUIDTypeAdapter;
@@ -25,7 +27,6 @@ import net.minecraft.launcher.profile.AuthenticationDatabase;
 import net.minecraft.launcher.profile.Profile;
 import net.minecraft.launcher.profile.ProfileManager;
 import net.minecraft.launcher.updater.*;
-import org.apache.commons.io.Charsets;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.*;
 import org.apache.logging.log4j.LogManager;
@@ -39,6 +40,7 @@ import java.net.PasswordAuthentication;
 import java.net.Proxy;
 import java.text.DateFormat;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public class Launcher
 {
@@ -53,6 +55,11 @@ public class Launcher
     private boolean winTenHack;
     private UUID clientToken;
     private String requestedUser;
+    private Integer downloadRateLimit;
+    private Integer verifyInterval;
+    private String resourceBundleMirror;
+    private int downloadWorkers;
+    private final Map<String, List<String>> mirrors;
     
     public static Launcher getCurrentInstance() {
         return Launcher.INSTANCE;
@@ -66,6 +73,8 @@ public class Launcher
         this.gson = new Gson();
         this.winTenHack = false;
         this.clientToken = UUID.randomUUID();
+        this.mirrors = new LinkedHashMap<String, List<String>>();
+        this.downloadWorkers = com.mojang.launcher.Launcher.DEFAULT_VIRTUAL_DOWNLOAD_WORKERS;
         (Launcher.INSTANCE = this).setupErrorHandling();
         this.bootstrapVersion = bootstrapVersion;
         this.userInterface = this.selectUserInterface(frame);
@@ -87,7 +96,20 @@ public class Launcher
         Launcher.LOGGER.info("System.getProperty('sun.arch.data.model') == '" + System.getProperty("sun.arch.data.model") + "'");
         Launcher.LOGGER.info("proxy == " + proxy);
         this.launchDispatcher = new GameLaunchDispatcher(this, this.processArgs(args));
-        this.launcher = new com.mojang.launcher.Launcher(this.userInterface, workingDirectory, proxy, proxyAuth, new MinecraftVersionManager(new LocalVersionList(workingDirectory), new RemoteVersionList(LauncherConstants.PROPERTIES.getVersionManifest(), proxy)), Agent.MINECRAFT, MinecraftReleaseTypeFactory.instance(), LauncherConstants.VERSION_FORMAT);
+        final MinecraftVersionManager versionManager = new MinecraftVersionManager(new LocalVersionList(workingDirectory), new RemoteVersionList(LauncherConstants.PROPERTIES.getVersionManifest(), proxy));
+        if (this.verifyInterval != null) {
+            versionManager.getVerifiedFileIndex().setReverifyInterval(TimeUnit.DAYS.toMillis(this.verifyInterval));
+            Launcher.LOGGER.info("Re-verifying downloaded files every " + this.verifyInterval + " day(s)");
+        }
+        versionManager.setAssetBundleBase(this.resourceBundleMirror);
+        this.launcher = new com.mojang.launcher.Launcher(this.userInterface, workingDirectory, proxy, proxyAuth, versionManager, Agent.MINECRAFT, MinecraftReleaseTypeFactory.instance(), LauncherConstants.VERSION_FORMAT, this.downloadWorkers);
+        if (this.downloadRateLimit != null) {
+            this.launcher.getBandwidthLimiter().setBytesPerSecond(this.downloadRateLimit * 1024L);
+            Launcher.LOGGER.info("Limiting downloads to " + this.downloadRateLimit + " KiB/s");
+        }
+        for (final Map.Entry<String, List<String>> entry : this.mirrors.entrySet()) {
+            Downloadable.getMirrorSelector().setMirrors(entry.getKey(), entry.getValue());
+        }
         this.profileManager = new ProfileManager(this);
         ((SwingUserInterface)this.userInterface).initializeFrame();
         this.refreshVersionsAndProfiles();
@@ -131,6 +153,13 @@ public class Launcher
         final OptionParser optionParser = new OptionParser();
         optionParser.allowsUnrecognizedOptions();
         final OptionSpec<String> userOption = optionParser.accepts("user").withRequiredArg().ofType(String.class);
+        final OptionSpec<Integer> downloadLimitOption = optionParser.accepts("downloadLimit").withRequiredArg().ofType(Integer.class);
+        final OptionSpec<Integer> downloadWorkersOption = optionParser.accepts("downloadWorkers").withRequiredArg().ofType(Integer.class);
+        final OptionSpec<Integer> verifyIntervalOption = optionParser.accepts("verifyInterval").withRequiredArg().ofType(Integer.class);
+        final OptionSpec<String> resourceMirrorOption = optionParser.accepts("resourceMirror").withRequiredArg().ofType(String.class);
+        final OptionSpec<String> resourceBundleMirrorOption = optionParser.accepts("resourceBundleMirror").withRequiredArg().ofType(String.class);
+        final OptionSpec<String> libraryMirrorOption = optionParser.accepts("libraryMirror").withRequiredArg().ofType(String.class);
+        final OptionSpec<String> versionMirrorOption = optionParser.accepts("versionMirror").withRequiredArg().ofType(String.class);
         final OptionSpec<String> nonOptions = optionParser.nonOptions();
         OptionSet optionSet;
         try {
@@ -142,6 +171,27 @@ public class Launcher
         if (optionSet.has(userOption)) {
             this.requestedUser = optionSet.valueOf(userOption);
         }
+        if (optionSet.has(downloadLimitOption)) {
+            this.downloadRateLimit = optionSet.valueOf(downloadLimitOption);
+        }
+        if (optionSet.has(downloadWorkersOption)) {
+            this.downloadWorkers = Math.max(1, optionSet.valueOf(downloadWorkersOption));
+        }
+        if (optionSet.has(verifyIntervalOption)) {
+            this.verifyInterval = optionSet.valueOf(verifyIntervalOption);
+        }
+        if (optionSet.has(resourceMirrorOption)) {
+            this.mirrors.put(LauncherConstants.URL_RESOURCE_BASE, optionSet.valuesOf(resourceMirrorOption));
+        }
+        if (optionSet.has(resourceBundleMirrorOption)) {
+            this.resourceBundleMirror = optionSet.valueOf(resourceBundleMirrorOption);
+        }
+        if (optionSet.has(libraryMirrorOption)) {
+            this.mirrors.put(LauncherConstants.URL_LIBRARY_BASE, optionSet.valuesOf(libraryMirrorOption));
+        }
+        if (optionSet.has(versionMirrorOption)) {
+            this.mirrors.put(LauncherConstants.URL_JAR_FALLBACK, optionSet.valuesOf(versionMirrorOption));
+        }
         final List<String> remainingOptions = optionSet.valuesOf(nonOptions);
         return remainingOptions.toArray(new String[remainingOptions.size()]);
     }
@@ -275,9 +325,9 @@ public class Launcher
                 final CompleteMinecraftVersion version = (CompleteMinecraftVersion)syncInfo.getLocalVersion();
                 final String assetVersion = version.getAssetIndex().getId();
                 final File indexFile = new File(indexDir, assetVersion + ".json");
-                final AssetIndex index = this.gson.fromJson(FileUtils.readFileToString(indexFile, Charsets.UTF_8), AssetIndex.class);
-                for (final AssetIndex.AssetObject object : index.getUniqueObjects().keySet()) {
-                    referencedObjects.add(object.getHash().toLowerCase());
+                final AssetIndex index = AssetIndexCache.get(indexFile);
+                for (int i = 0; i < index.getUniqueCount(); ++i) {
+                    referencedObjects.add(index.getUniqueObject(i).getHash());
                 }
             }
         }
@@ -1,6 +1,7 @@
 package net.minecraft.launcher;
 
 import com.mojang.launcher.OperatingSystem;
+import com.mojang.launcher.updater.download.ConnectionPool;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
@@ -23,6 +24,7 @@ public class Main
     
     public static void main(final String[] args) {
         Main.LOGGER.debug("main() called!");
+        ConnectionPool.configureKeepAlive(ConnectionPool.MAX_CONNECTIONS_PER_HOST);
         startLauncher(args);
     }
     
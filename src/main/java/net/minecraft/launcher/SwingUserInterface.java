@@ -98,6 +98,8 @@ public class SwingUserInterface implements MinecraftUserInterface
                 SwingUserInterface.LOGGER.info("Window closed, shutting down.");
                 SwingUserInterface.this.frame.setVisible(false);
                 SwingUserInterface.this.frame.dispose();
+                SwingUserInterface.LOGGER.info("Cancelling downloads");
+                SwingUserInterface.this.minecraftLauncher.getLaunchDispatcher().cancelDownloads();
                 SwingUserInterface.LOGGER.info("Halting executors");
                 SwingUserInterface.this.minecraftLauncher.getLauncher().getVersionManager().getExecutorService().shutdown();
                 SwingUserInterface.LOGGER.info("Awaiting termination.");
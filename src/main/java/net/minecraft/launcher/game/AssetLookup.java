@@ -0,0 +1,56 @@
+package net.minecraft.launcher.game;
+
+import com.mojang.launcher.updater.download.assets.AssetIndex;
+import com.mojang.launcher.updater.download.assets.AssetIndexCache;
+import org.apache.commons.lang3.text.StrLookup;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+public class AssetLookup extends StrLookup<String>
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String ASSET_PREFIX = "asset=";
+    private final Map<String, String> values;
+    private final File objectsDir;
+    private final File indexFile;
+    private AssetIndex index;
+    private boolean indexLoaded;
+    
+    public AssetLookup(final Map<String, String> values, final File objectsDir, final File indexFile) {
+        this.values = values;
+        this.objectsDir = objectsDir;
+        this.indexFile = indexFile;
+    }
+    
+    @Override
+    public String lookup(final String key) {
+        final String value = this.values.get(key);
+        if (value != null || key == null || !key.startsWith(ASSET_PREFIX)) {
+            return value;
+        }
+        final AssetIndex index = this.getIndex();
+        final AssetIndex.AssetObject object = (index == null) ? null : index.find(key.substring(ASSET_PREFIX.length()));
+        if (object == null) {
+            return null;
+        }
+        final String hash = object.getHash();
+        return new File(this.objectsDir, hash.substring(0, 2) + "/" + hash).getAbsolutePath();
+    }
+    
+    private synchronized AssetIndex getIndex() {
+        if (!this.indexLoaded) {
+            this.indexLoaded = true;
+            try {
+                this.index = AssetIndexCache.get(this.indexFile);
+            }
+            catch (IOException e) {
+                AssetLookup.LOGGER.debug("Couldn't read asset index " + this.indexFile + " to resolve asset arguments", e);
+            }
+        }
+        return this.index;
+    }
+}
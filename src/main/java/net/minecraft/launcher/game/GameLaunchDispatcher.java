@@ -3,6 +3,7 @@ package net.minecraft.launcher.game;
 import com.google.common.base.Objects;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.collect.Lists;
 import com.mojang.authlib.UserAuthentication;
 import com.mojang.launcher.game.GameInstanceStatus;
 import com.mojang.launcher.game.runner.GameRunner;
@@ -13,6 +14,7 @@ import net.minecraft.launcher.profile.Profile;
 import net.minecraft.launcher.profile.ProfileManager;
 
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class GameLaunchDispatcher implements GameRunnerListener
@@ -132,6 +134,22 @@ public class GameLaunchDispatcher implements GameRunnerListener
         }
     }
     
+    public void cancelDownloads() {
+        final List<MinecraftGameRunner> runners;
+        this.lock.lock();
+        try {
+            runners = Lists.newArrayList(this.instances.values());
+        }
+        finally {
+            this.lock.unlock();
+        }
+        for (final MinecraftGameRunner runner : runners) {
+            if (runner.getStatus() == GameInstanceStatus.DOWNLOADING) {
+                runner.cancelDownloads();
+            }
+        }
+    }
+    
     public boolean isRunningInSameFolder() {
         this.lock.lock();
         try {
@@ -18,9 +18,14 @@ import com.mojang.launcher.game.process.GameProcessRunnable;
 import com.mojang.launcher.game.process.direct.DirectGameProcessFactory;
 import com.mojang.launcher.game.runner.AbstractGameRunner;
 import com.mojang.launcher.updater.DateTypeAdapter;
+import com.mojang.launcher.updater.VersionManager;
 import com.mojang.launcher.updater.VersionSyncInfo;
 import com.mojang.launcher.updater.download.Downloadable;
+import com.mojang.launcher.updater.download.TransferEngine;
+import com.mojang.launcher.updater.download.VerifiedFileIndex;
 import com.mojang.launcher.updater.download.assets.AssetIndex;
+import com.mojang.launcher.updater.download.assets.AssetIndexCache;
+import com.mojang.launcher.updater.download.assets.AssetReconstructor;
 import com.mojang.launcher.versions.ExtractRules;
 import com.mojang.util.UUIDTypeAdapter;
 import net.minecraft.launcher.CompatibilityRule;
@@ -32,7 +37,7 @@ import net.minecraft.launcher.profile.Profile;
 import net.minecraft.launcher.updater.ArgumentType;
 import net.minecraft.launcher.updater.CompleteMinecraftVersion;
 import net.minecraft.launcher.updater.Library;
-import org.apache.commons.io.Charsets;
+import net.minecraft.launcher.updater.MinecraftVersionManager;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.FileFilterUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
@@ -203,16 +208,27 @@ public class MinecraftGameRunner extends AbstractGameRunner implements GameProce
         return (CompleteMinecraftVersion)this.version;
     }
     
-    private AssetIndex getAssetIndex() throws IOException {
-        final String assetVersion = this.getVersion().getAssetIndex().getId();
-        final File indexFile = new File(new File(this.getAssetsDir(), "indexes"), assetVersion + ".json");
-        return this.gson.fromJson(FileUtils.readFileToString(indexFile, Charsets.UTF_8), AssetIndex.class);
-    }
-    
     private File getAssetsDir() {
         return new File(this.getLauncher().getWorkingDirectory(), "assets");
     }
     
+    private String getAssetIndexHash(final File indexFile) {
+        final VersionManager versionManager = this.getLauncher().getVersionManager();
+        if (versionManager instanceof MinecraftVersionManager) {
+            final VerifiedFileIndex verifiedFileIndex = ((MinecraftVersionManager)versionManager).getVerifiedFileIndex();
+            if (verifiedFileIndex != null) {
+                final String known = verifiedFileIndex.getKnownDigest(indexFile, "SHA-1");
+                if (known != null) {
+                    return known;
+                }
+                final String hash = verifiedFileIndex.getDigest(indexFile, "SHA-1");
+                verifiedFileIndex.save();
+                return hash;
+            }
+        }
+        return TransferEngine.getDigest(indexFile, "SHA-1");
+    }
+    
     private File reconstructAssets() throws IOException {
         final File assetsDir = this.getAssetsDir();
         final File indexDir = new File(assetsDir, "indexes");
@@ -224,16 +240,17 @@ public class MinecraftGameRunner extends AbstractGameRunner implements GameProce
             MinecraftGameRunner.LOGGER.warn("No assets index file " + virtualRoot + "; can't reconstruct assets");
             return virtualRoot;
         }
-        final AssetIndex index = this.gson.fromJson(FileUtils.readFileToString(indexFile, Charsets.UTF_8), AssetIndex.class);
+        final AssetReconstructor reconstructor = new AssetReconstructor(objectDir, virtualRoot);
+        final String indexHash = this.getAssetIndexHash(indexFile);
+        if (reconstructor.isUpToDate(indexHash)) {
+            MinecraftGameRunner.LOGGER.debug("Virtual assets folder at " + virtualRoot + " is up to date");
+            FileUtils.writeStringToFile(new File(virtualRoot, ".lastused"), this.dateAdapter.serializeToString(new Date()));
+            return virtualRoot;
+        }
+        final AssetIndex index = AssetIndexCache.get(indexFile);
         if (index.isVirtual()) {
             MinecraftGameRunner.LOGGER.info("Reconstructing virtual assets folder at " + virtualRoot);
-            for (final Map.Entry<String, AssetIndex.AssetObject> entry : index.getFileMap().entrySet()) {
-                final File target = new File(virtualRoot, entry.getKey());
-                final File original = new File(new File(objectDir, entry.getValue().getHash().substring(0, 2)), entry.getValue().getHash());
-                if (!target.isFile()) {
-                    FileUtils.copyFile(original, target, false);
-                }
-            }
+            reconstructor.reconstruct(index, indexHash);
             FileUtils.writeStringToFile(new File(virtualRoot, ".lastused"), this.dateAdapter.serializeToString(new Date()));
         }
         return virtualRoot;
@@ -281,22 +298,14 @@ public class MinecraftGameRunner extends AbstractGameRunner implements GameProce
             map.put("resolution_height", "");
         }
         map.put("language", "en-us");
-        try {
-            final AssetIndex assetIndex = this.getAssetIndex();
-            for (final Map.Entry<String, AssetIndex.AssetObject> entry : assetIndex.getFileMap().entrySet()) {
-                final String hash = entry.getValue().getHash();
-                final String path = new File(new File(this.getAssetsDir(), "objects"), hash.substring(0, 2) + "/" + hash).getAbsolutePath();
-                map.put("asset=" + entry.getKey(), path);
-            }
-        }
-        catch (IOException ignored) { }
         map.put("launcher_name", "java-minecraft-launcher");
         map.put("launcher_version", LauncherConstants.getVersionName());
         map.put("natives_directory", this.nativeDir.getAbsolutePath());
         map.put("classpath", this.constructClassPath(this.getVersion()));
         map.put("classpath_separator", System.getProperty("path.separator"));
         map.put("primary_jar", new File(this.getLauncher().getWorkingDirectory(), "versions/" + this.getVersion().getJar() + "/" + this.getVersion().getJar() + ".jar").getAbsolutePath());
-        return new StrSubstitutor(map);
+        final File indexFile = new File(new File(this.getAssetsDir(), "indexes"), this.getVersion().getAssetIndex().getId() + ".json");
+        return new StrSubstitutor(new AssetLookup(map, new File(this.getAssetsDir(), "objects"), indexFile));
     }
     
     private void migrateOldAssets() {
@@ -307,7 +316,7 @@ public class MinecraftGameRunner extends AbstractGameRunner implements GameProce
         }
         final IOFileFilter migratableFilter = FileFilterUtils.notFileFilter(FileFilterUtils.or(FileFilterUtils.nameFileFilter("indexes"), FileFilterUtils.nameFileFilter("objects"), FileFilterUtils.nameFileFilter("virtual"), FileFilterUtils.nameFileFilter("skins")));
         for (final File file : FileUtils.listFiles(sourceDir, TrueFileFilter.TRUE, migratableFilter)) {
-            final String hash = Downloadable.getDigest(file, "SHA-1", 40);
+            final String hash = TransferEngine.getDigest(file, "SHA-1");
             final File destinationFile = new File(objectsDir, hash.substring(0, 2) + "/" + hash);
             if (!destinationFile.exists()) {
                 MinecraftGameRunner.LOGGER.info("Migrated old asset {} into {}", file, destinationFile);
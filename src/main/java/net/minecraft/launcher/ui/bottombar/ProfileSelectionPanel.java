@@ -106,6 +106,9 @@ public class ProfileSelectionPanel extends JPanel implements ActionListener, Ite
         }
         if (!this.skipSelectionUpdate && e.getItem() instanceof Profile) {
             final Profile profile = (Profile)e.getItem();
+            if (!profile.getName().equals(this.minecraftLauncher.getProfileManager().getSelectedProfile().getName())) {
+                this.minecraftLauncher.getLaunchDispatcher().cancelDownloads();
+            }
             this.minecraftLauncher.getProfileManager().setSelectedProfile(profile.getName());
             try {
                 this.minecraftLauncher.getProfileManager().saveProfiles();
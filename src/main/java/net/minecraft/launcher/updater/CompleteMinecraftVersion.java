@@ -326,7 +326,11 @@ public class CompleteMinecraftVersion implements CompleteVersion
     }
     
     public CompatibilityRule.FeatureMatcher createFeatureMatcher() {
-        final ProfileManager profileManager = Launcher.getCurrentInstance().getProfileManager();
+        final Launcher launcher = Launcher.getCurrentInstance();
+        if (launcher == null) {
+            return new CurrentLaunchFeatureMatcher(null, this, null);
+        }
+        final ProfileManager profileManager = launcher.getProfileManager();
         final UserAuthentication auth = profileManager.getAuthDatabase().getByUUID(profileManager.getSelectedUser());
         return new CurrentLaunchFeatureMatcher(profileManager.getSelectedProfile(), this, auth);
     }
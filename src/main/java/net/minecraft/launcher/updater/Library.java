@@ -157,7 +157,9 @@ public class Library
         if (info != null) {
             final URL url2 = info.getUrl();
             if (url2 != null) {
-                return new PreHashedDownloadable(proxy, url2, local, ignoreLocalFiles, info.getSha1());
+                final Downloadable download = new PreHashedDownloadable(proxy, url2, local, ignoreLocalFiles, info.getSha1());
+                download.setExpectedSize(info.getSize());
+                return download;
             }
         }
         return null;
@@ -9,26 +9,33 @@ import com.mojang.launcher.updater.ExceptionalThreadPoolExecutor;
 import com.mojang.launcher.updater.VersionFilter;
 import com.mojang.launcher.updater.VersionManager;
 import com.mojang.launcher.updater.VersionSyncInfo;
+import com.mojang.launcher.updater.download.ChecksumCache;
 import com.mojang.launcher.updater.download.DownloadJob;
 import com.mojang.launcher.updater.download.Downloadable;
 import com.mojang.launcher.updater.download.EtagDownloadable;
+import com.mojang.launcher.updater.download.TransferEngine;
+import com.mojang.launcher.updater.download.VerifiedFileIndex;
+import com.mojang.launcher.updater.download.assets.AssetBundleDownloadable;
+import com.mojang.launcher.updater.download.assets.AssetDiff;
 import com.mojang.launcher.updater.download.assets.AssetDownloadable;
 import com.mojang.launcher.updater.download.assets.AssetIndex;
+import com.mojang.launcher.updater.download.assets.AssetIndexCache;
 import com.mojang.launcher.versions.CompleteVersion;
 import com.mojang.launcher.versions.ReleaseType;
 import com.mojang.launcher.versions.Version;
 import net.minecraft.launcher.LauncherConstants;
 import net.minecraft.launcher.game.MinecraftReleaseType;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.*;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -36,6 +43,7 @@ import java.util.concurrent.TimeUnit;
 public class MinecraftVersionManager implements VersionManager
 {
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final int MIN_BUNDLE_OBJECTS = 8;
     private final VersionList localVersionList;
     private final VersionList remoteVersionList;
     private final ThreadPoolExecutor executorService;
@@ -43,14 +51,20 @@ public class MinecraftVersionManager implements VersionManager
     private final Object refreshLock;
     private boolean isRefreshing;
     private final Gson gson;
+    private ChecksumCache checksumCache;
+    private final VerifiedFileIndex verifiedFileIndex;
+    private String assetBase;
+    private String assetBundleBase;
     
     public MinecraftVersionManager(final VersionList localVersionList, final VersionList remoteVersionList) {
         this.executorService = new ExceptionalThreadPoolExecutor(4, 8, 30L, TimeUnit.SECONDS);
         this.refreshedVersionsListeners = Collections.synchronizedList(new ArrayList<RefreshedVersionsListener>());
         this.refreshLock = new Object();
         this.gson = new Gson();
+        this.assetBase = LauncherConstants.URL_RESOURCE_BASE;
         this.localVersionList = localVersionList;
         this.remoteVersionList = remoteVersionList;
+        this.verifiedFileIndex = (localVersionList instanceof LocalVersionList) ? new VerifiedFileIndex(new File(((LocalVersionList)localVersionList).getBaseDirectory(), "verified_files.json")) : null;
     }
     
     @Override
@@ -258,18 +272,55 @@ public class MinecraftVersionManager implements VersionManager
         final CompleteMinecraftVersion version = this.getLatestCompleteVersion(syncInfo);
         final File baseDirectory = ((LocalVersionList)this.localVersionList).getBaseDirectory();
         final Proxy proxy = ((RemoteVersionList)this.remoteVersionList).getProxy();
-        job.addDownloadables(version.getRequiredDownloadables(OperatingSystem.getCurrentPlatform(), proxy, baseDirectory, false));
+        final Set<Downloadable> libraries = version.getRequiredDownloadables(OperatingSystem.getCurrentPlatform(), proxy, baseDirectory, false);
+        this.getChecksumCache(baseDirectory).prefetch(libraries);
+        for (final Downloadable library : libraries) {
+            library.setVerifiedFileIndex(this.verifiedFileIndex);
+        }
+        job.addDownloadables(libraries);
         final String jarFile = "versions/" + version.getJar() + "/" + version.getJar() + ".jar";
         final AbstractDownloadInfo clientInfo = version.getDownloadURL(DownloadType.CLIENT);
         if (clientInfo == null) {
-            job.addDownloadables(new EtagDownloadable(proxy, new URL(LauncherConstants.URL_JAR_FALLBACK + jarFile), new File(baseDirectory, jarFile), false));
+            final Downloadable clientDownload = new EtagDownloadable(proxy, new URL(LauncherConstants.URL_JAR_FALLBACK + jarFile), new File(baseDirectory, jarFile), false);
+            clientDownload.setVerifiedFileIndex(this.verifiedFileIndex);
+            job.addDownloadables(clientDownload);
         }
         else {
-            job.addDownloadables(new PreHashedDownloadable(proxy, clientInfo.getUrl(), new File(baseDirectory, jarFile), false, clientInfo.getSha1()));
+            final Downloadable clientDownload = new PreHashedDownloadable(proxy, clientInfo.getUrl(), new File(baseDirectory, jarFile), false, clientInfo.getSha1());
+            clientDownload.setExpectedSize(clientInfo.getSize());
+            clientDownload.setVerifiedFileIndex(this.verifiedFileIndex);
+            job.addDownloadables(clientDownload);
         }
         return job;
     }
     
+    public VerifiedFileIndex getVerifiedFileIndex() {
+        return this.verifiedFileIndex;
+    }
+    
+    public String getAssetBase() {
+        return this.assetBase;
+    }
+    
+    public void setAssetBase(final String assetBase) {
+        this.assetBase = assetBase.endsWith("/") ? assetBase : (assetBase + "/");
+    }
+    
+    public String getAssetBundleBase() {
+        return this.assetBundleBase;
+    }
+    
+    public void setAssetBundleBase(final String assetBundleBase) {
+        this.assetBundleBase = (assetBundleBase == null || assetBundleBase.endsWith("/")) ? assetBundleBase : (assetBundleBase + "/");
+    }
+    
+    private synchronized ChecksumCache getChecksumCache(final File baseDirectory) {
+        if (this.checksumCache == null) {
+            this.checksumCache = new ChecksumCache(new File(baseDirectory, "library_checksums.json"));
+        }
+        return this.checksumCache;
+    }
+    
     @Override
     public DownloadJob downloadResources(final DownloadJob job, final CompleteVersion version) throws IOException {
         final File baseDirectory = ((LocalVersionList)this.localVersionList).getBaseDirectory();
@@ -279,7 +330,6 @@ public class MinecraftVersionManager implements VersionManager
     
     private Set<Downloadable> getResourceFiles(final Proxy proxy, final File baseDirectory, final CompleteMinecraftVersion version) {
         final Set<Downloadable> result = new HashSet<Downloadable>();
-        InputStream inputStream = null;
         final File assets = new File(baseDirectory, "assets");
         final File objectsFolder = new File(assets, "objects");
         final File indexesFolder = new File(assets, "indexes");
@@ -287,34 +337,109 @@ public class MinecraftVersionManager implements VersionManager
         final AssetIndexInfo indexInfo = version.getAssetIndex();
         final File indexFile = new File(indexesFolder, indexInfo.getId() + ".json");
         try {
-            final URL indexUrl = indexInfo.getUrl();
-            inputStream = indexUrl.openConnection(proxy).getInputStream();
-            final String json = IOUtils.toString(inputStream);
-            FileUtils.writeStringToFile(indexFile, json);
-            final AssetIndex index = this.gson.fromJson(json, AssetIndex.class);
-            for (final Map.Entry<AssetIndex.AssetObject, String> entry : index.getUniqueObjects().entrySet()) {
+            this.fetchAssetIndex(proxy, indexInfo, indexFile);
+            final AssetIndex index = AssetIndexCache.get(indexFile);
+            final AssetDiff diff = new AssetDiff(objectsFolder);
+            final Map<AssetIndex.AssetObject, String> missing = diff.diff(index);
+            MinecraftVersionManager.LOGGER.info("Compared " + index.getUniqueCount() + " asset(s) across " + diff.getBuckets() + " folder(s) in " + diff.getTime() + " ms (" + (System.nanoTime() - start) / 1000000L + " ms including index); " + missing.size() + " need downloading");
+            if (this.assetBundleBase != null) {
+                this.addAssetBundles(proxy, objectsFolder, missing, result);
+            }
+            for (final Map.Entry<AssetIndex.AssetObject, String> entry : missing.entrySet()) {
                 final AssetIndex.AssetObject object = entry.getKey();
-                final String filename = object.getHash().substring(0, 2) + "/" + object.getHash();
-                final File file = new File(objectsFolder, filename);
-                if (!file.isFile() || FileUtils.sizeOf(file) != object.getSize()) {
-                    final Downloadable downloadable = new AssetDownloadable(proxy, entry.getValue(), object, LauncherConstants.URL_RESOURCE_BASE, objectsFolder);
-                    downloadable.setExpectedSize(object.getSize());
-                    result.add(downloadable);
-                }
+                final Downloadable downloadable = new AssetDownloadable(proxy, entry.getValue(), object, this.assetBase, objectsFolder);
+                downloadable.setExpectedSize(object.getSize());
+                result.add(downloadable);
             }
-            final long end = System.nanoTime();
-            final long delta = end - start;
-            MinecraftVersionManager.LOGGER.debug("Delta time to compare resources: " + delta / 1000000L + " ms ");
         }
         catch (Exception ex) {
             MinecraftVersionManager.LOGGER.error("Couldn't download resources", ex);
         }
-        finally {
-            IOUtils.closeQuietly(inputStream);
-        }
         return result;
     }
     
+    private void addAssetBundles(final Proxy proxy, final File objectsFolder, final Map<AssetIndex.AssetObject, String> missing, final Set<Downloadable> result) throws MalformedURLException {
+        final Map<String, Map<AssetIndex.AssetObject, String>> buckets = new TreeMap<String, Map<AssetIndex.AssetObject, String>>();
+        for (final Map.Entry<AssetIndex.AssetObject, String> entry : missing.entrySet()) {
+            final String bucket = AssetIndex.AssetObject.getBucketName(entry.getKey().getBucket());
+            Map<AssetIndex.AssetObject, String> bucketObjects = buckets.get(bucket);
+            if (bucketObjects == null) {
+                bucketObjects = new HashMap<AssetIndex.AssetObject, String>();
+                buckets.put(bucket, bucketObjects);
+            }
+            bucketObjects.put(entry.getKey(), entry.getValue());
+        }
+        int bundles = 0;
+        int bundled = 0;
+        for (final Map.Entry<String, Map<AssetIndex.AssetObject, String>> entry : buckets.entrySet()) {
+            if (entry.getValue().size() >= MIN_BUNDLE_OBJECTS) {
+                result.add(new AssetBundleDownloadable(proxy, this.assetBundleBase, entry.getKey(), entry.getValue(), this.assetBase, objectsFolder));
+                missing.keySet().removeAll(entry.getValue().keySet());
+                ++bundles;
+                bundled += entry.getValue().size();
+            }
+        }
+        MinecraftVersionManager.LOGGER.info("Fetching " + bundled + " asset(s) as " + bundles + " bundle(s) from " + this.assetBundleBase);
+    }
+    
+    private void fetchAssetIndex(final Proxy proxy, final AssetIndexInfo indexInfo, final File indexFile) throws IOException {
+        final String expectedHash = (indexInfo.sizeAndHashKnown()) ? indexInfo.getSha1() : null;
+        final String algorithm = (expectedHash == null) ? "MD5" : "SHA-1";
+        final String localHash = indexFile.isFile() ? this.getLocalDigest(indexFile, algorithm) : null;
+        if (expectedHash != null && expectedHash.equalsIgnoreCase(localHash)) {
+            MinecraftVersionManager.LOGGER.debug("Asset index " + indexInfo.getId() + " is up to date, not downloading it");
+            return;
+        }
+        final URLConnection connection = indexInfo.getUrl().openConnection(proxy);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(30000);
+        if (expectedHash == null && localHash != null) {
+            connection.setIfModifiedSince(indexFile.lastModified());
+            connection.setRequestProperty("If-None-Match", localHash);
+        }
+        if (connection instanceof HttpURLConnection) {
+            final int status = ((HttpURLConnection)connection).getResponseCode();
+            if (status == 304) {
+                MinecraftVersionManager.LOGGER.debug("Asset index " + indexInfo.getId() + " was not modified on the server");
+                return;
+            }
+            if (status / 100 != 2) {
+                throw new IOException("Server responded with " + status + " for asset index " + indexInfo.getUrl());
+            }
+        }
+        final File partial = new File(indexFile.getPath() + ".part");
+        if (!indexFile.getParentFile().isDirectory() && !indexFile.getParentFile().mkdirs()) {
+            throw new IOException("Couldn't create directory " + indexFile.getParentFile());
+        }
+        final String hash = TransferEngine.copyAndDigest(connection.getInputStream(), partial, algorithm);
+        if (expectedHash != null && !expectedHash.equalsIgnoreCase(hash)) {
+            FileUtils.deleteQuietly(partial);
+            throw new IOException("Asset index " + indexInfo.getUrl() + " had hash " + hash + ", expected " + expectedHash);
+        }
+        if (!partial.renameTo(indexFile)) {
+            if (indexFile.isFile() && !indexFile.delete()) {
+                FileUtils.deleteQuietly(partial);
+                throw new IOException("Couldn't replace " + indexFile + " with " + partial);
+            }
+            if (!partial.renameTo(indexFile)) {
+                throw new IOException("Couldn't move " + partial + " to " + indexFile);
+            }
+        }
+        AssetIndexCache.invalidate(indexFile);
+        if (this.verifiedFileIndex != null) {
+            this.verifiedFileIndex.put(indexFile, algorithm, hash);
+            this.verifiedFileIndex.save();
+        }
+        MinecraftVersionManager.LOGGER.info("Downloaded asset index " + indexInfo.getId() + " (" + indexFile.length() + " bytes)");
+    }
+    
+    private String getLocalDigest(final File file, final String algorithm) {
+        if (this.verifiedFileIndex == null) {
+            return TransferEngine.getDigest(file, algorithm);
+        }
+        return this.verifiedFileIndex.getDigest(file, algorithm);
+    }
+    
     @Override
     public ThreadPoolExecutor getExecutorService() {
         return this.executorService;
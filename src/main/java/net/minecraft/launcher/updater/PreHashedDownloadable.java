@@ -1,13 +1,10 @@
 package net.minecraft.launcher.updater;
 
 import com.mojang.launcher.updater.download.Downloadable;
-import com.mojang.launcher.updater.download.MonitoringInputStream;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.Proxy;
 import java.net.URL;
@@ -28,26 +25,30 @@ public class PreHashedDownloadable extends Downloadable
         final File target = this.getTarget();
         String localHash;
         if (target.isFile()) {
-            localHash = Downloadable.getDigest(target, "SHA-1", 40);
+            localHash = this.getLocalDigest(target, "SHA-1");
             if (this.expectedHash.equalsIgnoreCase(localHash)) {
                 return "Local file matches hash, using that";
             }
             FileUtils.deleteQuietly(target);
         }
         try {
-            final HttpURLConnection connection = this.makeConnection(this.getUrl());
+            final HttpURLConnection connection = this.sendRequest(this.makeResumableConnection(this.getUrl(), "SHA-1"));
             final int status = connection.getResponseCode();
             if (status / 100 == 2) {
-                this.updateExpectedSize(connection);
-                final InputStream inputStream = new MonitoringInputStream(connection.getInputStream(), this.getMonitor());
-                final FileOutputStream outputStream = new FileOutputStream(this.getTarget());
-                final String digest = Downloadable.copyAndDigest(inputStream, outputStream, "SHA", 40);
+                final String digest = this.copyToPartial(connection);
                 if (this.expectedHash.equalsIgnoreCase(digest)) {
+                    this.commitPartial();
+                    this.recordDigest(target, "SHA-1", digest);
                     return "Downloaded successfully and hash matched";
                 }
+                this.discardPartial();
                 throw new RuntimeException(String.format("Hash did not match downloaded file (Expected %s, downloaded %s)", this.expectedHash, digest));
             }
             else {
+                this.releaseConnection(connection);
+                if (status == 416) {
+                    this.discardPartial();
+                }
                 if (this.getTarget().isFile()) {
                     return "Couldn't connect to server (responded with " + status + ") but have local file, assuming it's good";
                 }
@@ -0,0 +1,396 @@
+package net.minecraft.launcher.updater;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.mojang.launcher.updater.DateTypeAdapter;
+import com.mojang.launcher.updater.ExceptionalThreadPoolExecutor;
+import com.mojang.launcher.updater.VersionSyncInfo;
+import com.mojang.launcher.updater.download.ConnectionPool;
+import com.mojang.launcher.updater.download.DownloadJob;
+import com.mojang.launcher.updater.download.DownloadListener;
+import com.mojang.launcher.updater.download.DownloadPriority;
+import com.mojang.launcher.updater.download.DownloadReport;
+import com.mojang.launcher.updater.download.DownloadScheduler;
+import com.mojang.launcher.updater.download.DownloadTransport;
+import com.mojang.launcher.updater.download.Downloadable;
+import com.mojang.launcher.updater.download.MirrorSelector;
+import com.mojang.launcher.updater.download.SchedulingPolicy;
+import com.mojang.launcher.updater.download.ThreadPoolTransport;
+import com.mojang.launcher.updater.download.VirtualThreadTransport;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.Charsets;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class DownloadBenchmark
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String VERSION_ID = "benchmark";
+    private static final String MIRROR_PREFIX = "/mirror";
+    private static final int CHUNK_SIZE = 8192;
+    private final Map<String, byte[]> files;
+    private final Random random;
+    private final long latency;
+    private final long bytesPerSecond;
+    private HttpServer server;
+    private String baseUrl;
+    private String bundleBase;
+    
+    public DownloadBenchmark(final long latency, final long bytesPerSecond) {
+        this.files = new HashMap<String, byte[]>();
+        this.random = new Random(0L);
+        this.latency = latency;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+    
+    public static void main(final String[] args) throws Exception {
+        ConnectionPool.configureKeepAlive(ConnectionPool.MAX_CONNECTIONS_PER_HOST);
+        final OptionParser optionParser = new OptionParser();
+        final OptionSpec<Integer> librariesOption = optionParser.accepts("libraries").withRequiredArg().ofType(Integer.class).defaultsTo(40);
+        final OptionSpec<Integer> librarySizeOption = optionParser.accepts("librarySize").withRequiredArg().ofType(Integer.class).defaultsTo(262144);
+        final OptionSpec<Integer> assetsOption = optionParser.accepts("assets").withRequiredArg().ofType(Integer.class).defaultsTo(5000);
+        final OptionSpec<Integer> assetSizeOption = optionParser.accepts("assetSize").withRequiredArg().ofType(Integer.class).defaultsTo(8192);
+        final OptionSpec<Integer> latencyOption = optionParser.accepts("latency").withRequiredArg().ofType(Integer.class).defaultsTo(20);
+        final OptionSpec<Integer> bandwidthOption = optionParser.accepts("bandwidth").withRequiredArg().ofType(Integer.class).defaultsTo(0);
+        final OptionSpec<Integer> runsOption = optionParser.accepts("runs").withRequiredArg().ofType(Integer.class).defaultsTo(3);
+        final OptionSpec<Integer> threadsOption = optionParser.accepts("threads").withRequiredArg().ofType(Integer.class).defaultsTo(16);
+        final OptionSpec<Boolean> bundlesOption = optionParser.accepts("bundles").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
+        final OptionSpec<Boolean> virtualThreadsOption = optionParser.accepts("virtualThreads").withRequiredArg().ofType(Boolean.class).defaultsTo(true);
+        final OptionSpec<Long> budgetOption = optionParser.accepts("budget").withRequiredArg().ofType(Long.class).defaultsTo(0L);
+        final OptionSpec<Long> timeoutOption = optionParser.accepts("timeout").withRequiredArg().ofType(Long.class).defaultsTo(600000L);
+        final OptionSet optionSet = optionParser.parse(args);
+        final DownloadBenchmark benchmark = new DownloadBenchmark(optionSet.valueOf(latencyOption), optionSet.valueOf(bandwidthOption) * 1024L);
+        final long budget = optionSet.valueOf(budgetOption);
+        int failedRuns = 0;
+        benchmark.start();
+        try {
+            benchmark.createVersion(optionSet.valueOf(librariesOption), optionSet.valueOf(librarySizeOption), optionSet.valueOf(assetsOption), optionSet.valueOf(assetSizeOption), optionSet.valueOf(bundlesOption));
+            final int runs = optionSet.valueOf(runsOption);
+            final double[] filesPerSecond = new double[runs];
+            final double[] megabytesPerSecond = new double[runs];
+            for (int i = 0; i < runs; ++i) {
+                final Result result = benchmark.run(optionSet.valueOf(threadsOption), optionSet.valueOf(virtualThreadsOption), optionSet.valueOf(timeoutOption));
+                filesPerSecond[i] = result.getFilesPerSecond();
+                megabytesPerSecond[i] = result.getMegabytesPerSecond();
+                DownloadBenchmark.LOGGER.info("Run " + (i + 1) + "/" + runs + ": " + result);
+                if (result.getFailed() > 0) {
+                    DownloadBenchmark.LOGGER.error("Run " + (i + 1) + " failed to download " + result.getFailed() + " file(s)");
+                    ++failedRuns;
+                }
+                else if (budget > 0L && result.getElapsed() > budget) {
+                    DownloadBenchmark.LOGGER.error("Run " + (i + 1) + " took " + result.getElapsed() + " ms, over the budget of " + budget + " ms");
+                    ++failedRuns;
+                }
+            }
+            Arrays.sort(filesPerSecond);
+            Arrays.sort(megabytesPerSecond);
+            DownloadBenchmark.LOGGER.info(String.format("Median of %d run(s): %.1f files/s, %.2f MB/s", runs, filesPerSecond[runs / 2], megabytesPerSecond[runs / 2]));
+        }
+        finally {
+            benchmark.stop();
+        }
+        if (failedRuns > 0) {
+            throw new IllegalStateException(failedRuns + " benchmark run(s) failed or went over budget");
+        }
+    }
+    
+    public void start() throws IOException {
+        (this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)).createContext("/", new FileHandler());
+        this.server.setExecutor(Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Benchmark Server %d").build()));
+        this.server.start();
+        this.baseUrl = "http://127.0.0.1:" + this.server.getAddress().getPort();
+        DownloadBenchmark.LOGGER.info("Serving benchmark files from " + this.baseUrl + " with " + this.latency + " ms latency and " + ((this.bytesPerSecond > 0L) ? ((this.bytesPerSecond / 1024L) + " KiB/s per connection") : "unlimited bandwidth"));
+    }
+    
+    public void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.server = null;
+        }
+    }
+    
+    public void createVersion(final int libraries, final int librarySize, final int assets, final int assetSize, final boolean bundles) throws IOException {
+        final String now = new DateTypeAdapter().serializeToString(new Date());
+        final JsonArray libraryList = new JsonArray();
+        for (int i = 0; i < libraries; ++i) {
+            final String path = "com/mojang/benchmark/library-" + i + "/1.0/library-" + i + "-1.0.jar";
+            final byte[] content = this.createContent(librarySize / 2 + this.random.nextInt(librarySize));
+            final String hash = this.addFile("/libraries/" + path, content);
+            final JsonObject library = new JsonObject();
+            library.addProperty("name", "com.mojang.benchmark:library-" + i + ":1.0");
+            if (i % 2 == 0) {
+                library.addProperty("url", this.baseUrl + "/libraries/");
+                this.addFile("/libraries/" + path + ".sha1", hash.getBytes(Charsets.UTF_8));
+            }
+            else {
+                final JsonObject artifact = new JsonObject();
+                artifact.addProperty("path", path);
+                artifact.addProperty("url", this.baseUrl + "/libraries/" + path);
+                artifact.addProperty("sha1", hash);
+                artifact.addProperty("size", content.length);
+                final JsonObject downloads = new JsonObject();
+                downloads.add("artifact", artifact);
+                library.add("downloads", downloads);
+            }
+            libraryList.add(library);
+        }
+        final JsonObject objects = new JsonObject();
+        final Map<String, ZipOutputStream> bundleStreams = new TreeMap<String, ZipOutputStream>();
+        final Map<String, ByteArrayOutputStream> bundleContents = new TreeMap<String, ByteArrayOutputStream>();
+        long totalSize = 0L;
+        for (int j = 0; j < assets; ++j) {
+            final byte[] content = this.createContent(1 + this.random.nextInt(assetSize * 2));
+            final String hash = DigestUtils.sha1Hex(content);
+            this.files.put("/assets/" + hash.substring(0, 2) + "/" + hash, content);
+            if (bundles) {
+                ZipOutputStream bundle = bundleStreams.get(hash.substring(0, 2));
+                if (bundle == null) {
+                    final ByteArrayOutputStream bundleContent = new ByteArrayOutputStream();
+                    bundle = new ZipOutputStream(bundleContent);
+                    bundleStreams.put(hash.substring(0, 2), bundle);
+                    bundleContents.put(hash.substring(0, 2), bundleContent);
+                }
+                bundle.putNextEntry(new ZipEntry(hash.substring(0, 2) + "/" + hash));
+                bundle.write(content);
+                bundle.closeEntry();
+            }
+            final JsonObject object = new JsonObject();
+            object.addProperty("hash", hash);
+            object.addProperty("size", content.length);
+            objects.add("benchmark/file-" + j, object);
+            totalSize += content.length;
+        }
+        for (final Map.Entry<String, ZipOutputStream> entry : bundleStreams.entrySet()) {
+            entry.getValue().close();
+            this.files.put("/bundles/" + entry.getKey() + ".zip", bundleContents.get(entry.getKey()).toByteArray());
+        }
+        this.bundleBase = bundles ? (this.baseUrl + "/bundles/") : null;
+        final JsonObject index = new JsonObject();
+        index.add("objects", objects);
+        final byte[] indexContent = index.toString().getBytes(Charsets.UTF_8);
+        final JsonObject assetIndex = new JsonObject();
+        assetIndex.addProperty("id", DownloadBenchmark.VERSION_ID);
+        assetIndex.addProperty("sha1", this.addFile("/indexes/" + DownloadBenchmark.VERSION_ID + ".json", indexContent));
+        assetIndex.addProperty("size", indexContent.length);
+        assetIndex.addProperty("totalSize", totalSize);
+        assetIndex.addProperty("url", this.baseUrl + "/indexes/" + DownloadBenchmark.VERSION_ID + ".json");
+        final byte[] clientContent = this.createContent(librarySize * 16);
+        final JsonObject client = new JsonObject();
+        client.addProperty("url", this.baseUrl + "/versions/" + DownloadBenchmark.VERSION_ID + "/client.jar");
+        client.addProperty("sha1", this.addFile("/versions/" + DownloadBenchmark.VERSION_ID + "/client.jar", clientContent));
+        client.addProperty("size", clientContent.length);
+        final JsonObject downloads2 = new JsonObject();
+        downloads2.add("client", client);
+        final JsonObject version = new JsonObject();
+        version.addProperty("id", DownloadBenchmark.VERSION_ID);
+        version.addProperty("time", now);
+        version.addProperty("releaseTime", now);
+        version.addProperty("type", "release");
+        version.addProperty("mainClass", "net.minecraft.client.main.Main");
+        version.addProperty("minecraftArguments", "");
+        version.addProperty("assets", DownloadBenchmark.VERSION_ID);
+        version.add("assetIndex", assetIndex);
+        version.add("downloads", downloads2);
+        version.add("libraries", libraryList);
+        this.addFile("/versions/" + DownloadBenchmark.VERSION_ID + ".json", version.toString().getBytes(Charsets.UTF_8));
+        final JsonObject entry = new JsonObject();
+        entry.addProperty("id", DownloadBenchmark.VERSION_ID);
+        entry.addProperty("type", "release");
+        entry.addProperty("url", this.baseUrl + "/versions/" + DownloadBenchmark.VERSION_ID + ".json");
+        entry.addProperty("time", now);
+        entry.addProperty("releaseTime", now);
+        final JsonArray versions = new JsonArray();
+        versions.add(entry);
+        final JsonObject latest = new JsonObject();
+        latest.addProperty("release", DownloadBenchmark.VERSION_ID);
+        latest.addProperty("snapshot", DownloadBenchmark.VERSION_ID);
+        final JsonObject manifest = new JsonObject();
+        manifest.add("latest", latest);
+        manifest.add("versions", versions);
+        this.addFile("/version_manifest.json", manifest.toString().getBytes(Charsets.UTF_8));
+        final MirrorSelector mirrorSelector = new MirrorSelector();
+        mirrorSelector.setMirrors(this.baseUrl + "/assets/", Collections.singletonList(this.baseUrl + DownloadBenchmark.MIRROR_PREFIX + "/assets/"));
+        Downloadable.setMirrorSelector(mirrorSelector);
+        DownloadBenchmark.LOGGER.info("Created version with " + libraries + " libraries and " + assets + " assets (" + totalSize / 1024L + " KiB)" + (bundles ? (" in " + bundleStreams.size() + " bundle(s)") : ""));
+    }
+    
+    public Result run(final int threads, final boolean virtualThreads, final long timeout) throws Exception {
+        final File baseDirectory = FileUtils.getFile(FileUtils.getTempDirectory(), "launcher-benchmark-" + System.nanoTime());
+        final ExceptionalThreadPoolExecutor executor = new ExceptionalThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS);
+        final CountDownLatch latch = new CountDownLatch(2);
+        final DownloadListener listener = new DownloadListener() {
+            @Override
+            public void onDownloadJobFinished(final DownloadJob job) {
+                latch.countDown();
+            }
+            
+            @Override
+            public void onDownloadJobProgressChanged(final DownloadJob job) {
+            }
+        };
+        VirtualThreadTransport transport = null;
+        try {
+            baseDirectory.mkdirs();
+            final long start = System.nanoTime();
+            final MinecraftVersionManager versionManager = new MinecraftVersionManager(new LocalVersionList(baseDirectory), new RemoteVersionList(new URL(this.baseUrl + "/version_manifest.json"), Proxy.NO_PROXY));
+            versionManager.setAssetBase(this.baseUrl + "/assets/");
+            versionManager.setAssetBundleBase(this.bundleBase);
+            versionManager.refreshVersions();
+            final VersionSyncInfo syncInfo = versionManager.getVersionSyncInfo(DownloadBenchmark.VERSION_ID);
+            transport = virtualThreads ? VirtualThreadTransport.create(threads) : null;
+            final DownloadScheduler scheduler = new DownloadScheduler((transport == null) ? new ThreadPoolTransport(executor) : transport);
+            final DownloadJob librariesJob = new DownloadJob("Version & Libraries", false, listener);
+            librariesJob.setSchedulingPolicy(SchedulingPolicy.LARGEST_FIRST);
+            versionManager.downloadVersion(syncInfo, librariesJob);
+            librariesJob.startDownloading(scheduler);
+            final DownloadJob resourceJob = new DownloadJob("Resources", true, listener);
+            resourceJob.setPriority(DownloadPriority.BACKGROUND);
+            versionManager.downloadResources(resourceJob, versionManager.getLatestCompleteVersion(syncInfo));
+            resourceJob.startDownloading(scheduler);
+            if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+                librariesJob.cancel();
+                resourceJob.cancel();
+                throw new IllegalStateException("Benchmark run didn't finish within " + timeout + " ms");
+            }
+            final long elapsed = System.nanoTime() - start;
+            versionManager.getExecutorService().shutdown();
+            return new Result(scheduler.getTransport(), librariesJob.getReport(), resourceJob.getReport(), elapsed);
+        }
+        finally {
+            if (transport != null) {
+                transport.shutdown();
+            }
+            executor.shutdownNow();
+            FileUtils.deleteQuietly(baseDirectory);
+        }
+    }
+    
+    private byte[] createContent(final int size) {
+        final byte[] content = new byte[size];
+        this.random.nextBytes(content);
+        return content;
+    }
+    
+    private String addFile(final String path, final byte[] content) {
+        this.files.put(path, content);
+        return DigestUtils.sha1Hex(content);
+    }
+    
+    private void send(final HttpExchange exchange, final byte[] content) throws IOException, InterruptedException {
+        exchange.sendResponseHeaders(200, content.length);
+        final OutputStream outputStream = exchange.getResponseBody();
+        final long start = System.nanoTime();
+        for (int offset = 0; offset < content.length; offset += CHUNK_SIZE) {
+            outputStream.write(content, offset, Math.min(CHUNK_SIZE, content.length - offset));
+            if (this.bytesPerSecond > 0L) {
+                final long due = (offset + CHUNK_SIZE) * 1000L / this.bytesPerSecond;
+                final long elapsed = (System.nanoTime() - start) / 1000000L;
+                if (due > elapsed) {
+                    Thread.sleep(due - elapsed);
+                }
+            }
+        }
+        outputStream.close();
+    }
+    
+    private class FileHandler implements HttpHandler
+    {
+        @Override
+        public void handle(final HttpExchange exchange) throws IOException {
+            try {
+                String path = exchange.getRequestURI().getPath();
+                if (path.startsWith(DownloadBenchmark.MIRROR_PREFIX + "/")) {
+                    path = path.substring(DownloadBenchmark.MIRROR_PREFIX.length());
+                }
+                if (DownloadBenchmark.this.latency > 0L) {
+                    Thread.sleep(DownloadBenchmark.this.latency);
+                }
+                final byte[] content = DownloadBenchmark.this.files.get(path);
+                if (content == null) {
+                    exchange.sendResponseHeaders(404, -1L);
+                }
+                else {
+                    DownloadBenchmark.this.send(exchange, content);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finally {
+                exchange.close();
+            }
+        }
+    }
+    
+    public static class Result
+    {
+        private final DownloadTransport transport;
+        private final DownloadReport librariesReport;
+        private final DownloadReport resourcesReport;
+        private final long elapsed;
+        
+        public Result(final DownloadTransport transport, final DownloadReport librariesReport, final DownloadReport resourcesReport, final long elapsed) {
+            this.transport = transport;
+            this.librariesReport = librariesReport;
+            this.resourcesReport = resourcesReport;
+            this.elapsed = elapsed;
+        }
+        
+        public int getFiles() {
+            return this.librariesReport.getSuccessful() + this.resourcesReport.getSuccessful();
+        }
+        
+        public int getFailed() {
+            return this.librariesReport.getFailed() + this.resourcesReport.getFailed();
+        }
+        
+        public long getElapsed() {
+            return this.elapsed / 1000000L;
+        }
+        
+        public long getBytes() {
+            return this.librariesReport.getBytes() + this.resourcesReport.getBytes();
+        }
+        
+        public double getFilesPerSecond() {
+            return this.getFiles() * 1.0E9 / this.elapsed;
+        }
+        
+        public double getMegabytesPerSecond() {
+            return this.getBytes() * 1.0E9 / this.elapsed / 1048576.0;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s, %d worker(s): %d file(s), %d failed, %d retries, %.2f MB in %d ms: %.1f files/s, %.2f MB/s", this.transport.getName(), this.transport.getMaxWorkers(), this.getFiles(), this.getFailed(), this.librariesReport.getRetries() + this.resourcesReport.getRetries(), this.getBytes() / 1048576.0, this.elapsed / 1000000L, this.getFilesPerSecond(), this.getMegabytesPerSecond());
+        }
+    }
+}